@@ -0,0 +1,261 @@
+package com.generation.carona_spring.model;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionEventListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.generation.carona_spring.configuration.AlocadorIds;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Mede a inserção em massa de viagens (lotes de 1000, cada uma com duas paradas, em uma
+ * transação) com o Hibernate e as propriedades de lote do application.properties.
+ * Resultado em viagens inseridas por segundo.
+ *
+ * Por padrão o banco é um H2 em memória (modo MySQL) acessado por TCP local, para
+ * que cada comando tenha uma ida e volta como com o MySQL; com o H2 embutido não há
+ * ida e volta e as duas estratégias empatam. Para medir com MySQL:
+ * -p urlJdbc=jdbc:mysql://.../db?rewriteBatchedStatements=true -p usuario=... -p senha=...
+ * (banco descartável: as tabelas são recriadas)
+ *
+ * - BLOCOS: mapeamento atual (@IdEmBlocos): ids reservados em blocos de 50 em
+ *   tb_sequencias pelo AlocadorIds, em um pool de conexões próprio; os inserts das
+ *   viagens e das paradas vão em lotes JDBC
+ * - IDENTITY: mapeamento anterior da viagem (AUTO_INCREMENT, sobreposto via orm.xml);
+ *   o Hibernate executa e lê o id de cada insert de viagem isoladamente
+ *
+ * Ao fim de cada variante é impresso quantos comandos JDBC cada lote de viagens
+ * executou na última iteração.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ViagemInsercaoBenchmark {
+
+    private static final int QUANTIDADE = 1000;
+    private static final int PARADAS = 2;
+
+    // Mapeamento anterior da viagem (AUTO_INCREMENT), sobreposto via orm.xml para comparação;
+    // metadata-complete porque o @IdEmBlocos prevaleceria sobre um generated-value parcial
+    private static final String MAPEAMENTO_IDENTITY = """
+            <entity-mappings xmlns="https://jakarta.ee/xml/ns/persistence/orm" version="3.1">
+                <entity class="com.generation.carona_spring.model.Viagem" metadata-complete="true">
+                    <table name="tb_viagens"/>
+                    <attributes>
+                        <id name="id"><generated-value strategy="IDENTITY"/></id>
+                        <many-to-one name="veiculo"/>
+                        <many-to-one name="usuario"/>
+                        <element-collection name="paradas">
+                            <order-column name="ordem"/>
+                            <collection-table name="tb_viagens_paradas">
+                                <join-column name="viagem_id"/>
+                            </collection-table>
+                        </element-collection>
+                    </attributes>
+                </entity>
+            </entity-mappings>
+            """;
+
+    @Param({ "BLOCOS", "IDENTITY" })
+    private String estrategia;
+
+    @Param({ "" })
+    private String urlJdbc;
+
+    @Param({ "sa" })
+    private String usuario;
+
+    @Param({ "" })
+    private String senha;
+
+    private Server servidorH2;
+    private HikariDataSource dataSourceIds;
+    private SessionFactory sessionFactory;
+    private final ContadorExecucoes execucoes = new ContadorExecucoes();
+    private Long veiculoId;
+    private Long usuarioId;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        String url = urlJdbc;
+
+        if (url.isEmpty()) {
+            servidorH2 = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+            url = "jdbc:h2:tcp://localhost:" + servidorH2.getPort() + "/mem:insercao;MODE=MySQL;DB_CLOSE_DELAY=-1";
+        }
+
+        Configuration configuracao = new Configuration()
+                .addAnnotatedClass(Usuario.class)
+                .addAnnotatedClass(Veiculo.class)
+                .addAnnotatedClass(Viagem.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, url)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, usuario)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_PASSWORD, senha)
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "50")
+                .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+                .setProperty(AvailableSettings.ORDER_UPDATES, "true");
+
+        // Pool próprio do alocador, como no AlocadorIdsConfig (usuário e veículo usam blocos nas duas variantes)
+        dataSourceIds = new HikariDataSource();
+        dataSourceIds.setJdbcUrl(url);
+        dataSourceIds.setUsername(usuario);
+        dataSourceIds.setPassword(senha);
+        dataSourceIds.setMaximumPoolSize(2);
+        configuracao.getProperties().put(AlocadorIds.PROPRIEDADE, new AlocadorIds(dataSourceIds, 50));
+
+        if ("IDENTITY".equals(estrategia)) {
+            configuracao.addInputStream(new ByteArrayInputStream(MAPEAMENTO_IDENTITY.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        sessionFactory = configuracao.buildSessionFactory();
+
+        // tb_sequencias não é uma entidade: criada como na migração V6
+        sessionFactory.inTransaction(sessao -> {
+            sessao.createNativeMutationQuery("DROP TABLE IF EXISTS tb_sequencias").executeUpdate();
+            sessao.createNativeMutationQuery("CREATE TABLE tb_sequencias (nome VARCHAR(64) NOT NULL, "
+                    + "proximo_valor BIGINT NOT NULL, PRIMARY KEY (nome))").executeUpdate();
+            sessao.createNativeMutationQuery("INSERT INTO tb_sequencias (nome, proximo_valor) "
+                    + "VALUES ('tb_usuarios', 1), ('tb_veiculos', 1), ('tb_viagens', 1)").executeUpdate();
+        });
+
+        sessionFactory.inTransaction(sessao -> {
+            Usuario motorista = new Usuario();
+            motorista.setNome("Motorista");
+            motorista.setUsuario("motorista@email.com");
+            motorista.setSenha("senha-benchmark");
+            sessao.persist(motorista);
+
+            Veiculo veiculo = new Veiculo();
+            veiculo.setModelo("Onix");
+            veiculo.setPlaca("ABC1D23");
+            veiculo.setFoto("https://i.imgur.com/veiculo.png");
+            sessao.persist(veiculo);
+
+            sessao.flush();
+            usuarioId = motorista.getId();
+            veiculoId = veiculo.getId();
+        });
+    }
+
+    // Tabela vazia a cada iteração: o custo do insert não cresce com o volume acumulado
+    @Setup(Level.Iteration)
+    public void limpar() {
+        sessionFactory.inTransaction(sessao -> {
+            sessao.createNativeMutationQuery("DELETE FROM tb_viagens_paradas").executeUpdate();
+            sessao.createNativeMutationQuery("DELETE FROM tb_viagens").executeUpdate();
+        });
+        execucoes.zerar();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (execucoes.lotesDeViagens > 0) {
+            System.out.printf("%n%s: %.1f comandos JDBC executados por lote de %d viagens com %d paradas cada%n",
+                    estrategia, (double) execucoes.total / execucoes.lotesDeViagens, QUANTIDADE, PARADAS);
+        }
+
+        sessionFactory.close();
+
+        dataSourceIds.close();
+
+        if (servidorH2 != null) {
+            servidorH2.stop();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUANTIDADE)
+    public void inserirLote() {
+        try (Session sessao = sessionFactory.withOptions().eventListeners(execucoes).openSession()) {
+            Transaction transacao = sessao.beginTransaction();
+            Veiculo veiculo = sessao.getReference(Veiculo.class, veiculoId);
+            Usuario usuario = sessao.getReference(Usuario.class, usuarioId);
+            LocalDateTime dataPartida = LocalDateTime.now().plusDays(1).withNano(0);
+
+            for (int i = 0; i < QUANTIDADE; i++) {
+                Viagem viagem = new Viagem();
+                viagem.setPartida("Rua " + i + ", 100");
+                viagem.setDestino("Avenida Paulista, " + i);
+                viagem.setDataPartida(dataPartida.plusMinutes(i));
+                viagem.setDistancia(12.5);
+                viagem.setVelocidadeMedia(40.0);
+                viagem.setTempoEstimado(18.75);
+                viagem.setValor(new BigDecimal("27.50"));
+                viagem.setVagas(4);
+                viagem.setVagasDisponiveis(4);
+                viagem.setVeiculo(veiculo);
+                viagem.setUsuario(usuario);
+
+                for (int p = 0; p < PARADAS; p++) {
+                    Parada parada = new Parada();
+                    parada.setEndereco("Rua " + i + ", " + (200 + p));
+                    parada.setDistancia(10.0 - p * 4);
+                    parada.setValor(new BigDecimal("10.00"));
+                    viagem.getParadas().add(parada);
+                }
+
+                sessao.persist(viagem);
+            }
+
+            transacao.commit();
+        }
+
+        execucoes.lotesDeViagens++;
+    }
+
+    /**
+     * Comandos enviados ao banco pela sessão do benchmark: cada executeBatch conta uma vez,
+     * como cada insert isolado. As reservas de blocos usam outro pool e não entram.
+     */
+    private static final class ContadorExecucoes implements SessionEventListener {
+
+        private long total;
+        private long lotesDeViagens;
+
+        void zerar() {
+            total = 0;
+            lotesDeViagens = 0;
+        }
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            total++;
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            total++;
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.generation.carona_spring.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Mede a serialização JSON de listas de Viagem (com Veiculo e Usuario),
+ * como nas respostas de GET /viagens e GET /viagens/destino/{destino}.
+ *
+ * O ObjectMapper replica as configurações spring.jackson.* do application.properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViagemSerializacaoBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    private int quantidade;
+
+    private ObjectMapper objectMapper;
+    private List<Viagem> viagens;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .simpleDateFormat("yyyy-MM-dd HH:mm:ss")
+                .timeZone(TimeZone.getTimeZone("America/Sao_Paulo"))
+                .build();
+
+        Veiculo veiculo = new Veiculo();
+        veiculo.setId(1L);
+        veiculo.setModelo("Onix");
+        veiculo.setPlaca("ABC1D23");
+        veiculo.setFoto("https://i.imgur.com/veiculo.png");
+
+        Usuario usuario = new Usuario();
+        usuario.setId(1L);
+        usuario.setNome("Motorista");
+        usuario.setUsuario("motorista@email.com");
+        usuario.setFoto("https://i.imgur.com/usuario.png");
+
+        viagens = new ArrayList<>(quantidade);
+
+        for (int i = 0; i < quantidade; i++) {
+            Viagem viagem = new Viagem();
+            viagem.setId((long) i);
+            viagem.setPartida("Avenida Paulista, " + i);
+            viagem.setDestino("Rua Augusta, " + i);
+            viagem.setDataPartida(LocalDateTime.of(2025, 3, 10, 7, 30).plusMinutes(i));
+            viagem.setValor(BigDecimal.valueOf(27.35));
+            viagem.setDistancia(12.5);
+            viagem.setVelocidadeMedia(30.0);
+            viagem.setTempoEstimado(25.0);
+            viagem.setLatitudePartida(-23.561414);
+            viagem.setLongitudePartida(-46.655881);
+            viagem.setLatitudeDestino(-23.553580);
+            viagem.setLongitudeDestino(-46.659300);
+            viagem.setVeiculo(veiculo);
+            viagem.setUsuario(usuario);
+            viagens.add(viagem);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializarLista() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(viagens);
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.generation.carona_spring.security;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.generation.carona_spring.model.Usuario;
+
+import jakarta.servlet.ServletException;
+
+/**
+ * Mede o JwtAuthFilter de ponta a ponta: leitura do cabeçalho, validação do
+ * token, carga do usuário e preenchimento do SecurityContext.
+ *
+ * O UserDetailsServiceImpl é substituído por uma versão em memória,
+ * para medir apenas o custo do filtro.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    private static final String USUARIO = "benchmark@email.com";
+
+    private JwtAuthFilter filtro;
+    private String cabecalhoAutorizacao;
+
+    @Setup
+    public void setup() {
+        JwtService jwtService = new JwtService();
+        cabecalhoAutorizacao = "Bearer " + jwtService.generateToken(USUARIO);
+
+        Usuario usuario = new Usuario();
+        usuario.setUsuario(USUARIO);
+        usuario.setSenha("hash");
+        UserDetails userDetails = new UserDetailsImpl(usuario);
+
+        filtro = new JwtAuthFilter();
+        ReflectionTestUtils.setField(filtro, "jwtService", jwtService);
+        ReflectionTestUtils.setField(filtro, "userDetailsService", new UserDetailsServiceImpl(Set.of()) {
+            @Override
+            public UserDetails loadUserByUsername(String username) {
+                return userDetails;
+            }
+        });
+    }
+
+    @Benchmark
+    public int requisicaoAutenticada() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/viagens");
+        request.addHeader("Authorization", cabecalhoAutorizacao);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        try {
+            filtro.doFilter(request, response, new MockFilterChain());
+            return response.getStatus();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    public int requisicaoSemToken() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/viagens");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filtro.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.generation.carona_spring.security;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.generation.carona_spring.model.Usuario;
+
+/**
+ * Mede a geração, a leitura e a validação do token JWT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String USUARIO = "benchmark@email.com";
+
+    private JwtService jwtService;
+    private String token;
+    private UserDetails userDetails;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService();
+        token = jwtService.generateToken(USUARIO);
+
+        Usuario usuario = new Usuario();
+        usuario.setUsuario(USUARIO);
+        usuario.setSenha("hash");
+        userDetails = new UserDetailsImpl(usuario);
+    }
+
+    @Benchmark
+    public String gerarToken() {
+        return jwtService.generateToken(USUARIO);
+    }
+
+    @Benchmark
+    public String extrairUsuario() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean validarToken() {
+        return jwtService.validateToken(token, userDetails);
+    }
+
+}
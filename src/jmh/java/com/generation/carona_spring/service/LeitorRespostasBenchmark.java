@@ -0,0 +1,96 @@
+package com.generation.carona_spring.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.generation.carona_spring.records.Coordenadas;
+
+/**
+ * Compara a leitura das respostas da OpenCage e da OSRM:
+ *
+ * - Antigo: corpo convertido em String e árvore JSON completa (readTree)
+ * - Atual: LeitorRespostas lendo os tokens direto do fluxo de bytes, parando nos campos usados
+ *
+ * As respostas têm o formato real das APIs, incluindo o bloco de anotações da OpenCage.
+ * Para ver a alocação por operação (gc.alloc.rate.norm):
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=LeitorRespostasBenchmark -Djmh.argumentos="-prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeitorRespostasBenchmark {
+
+    private static final byte[] RESPOSTA_OPENCAGE = """
+            {"documentation":"https://opencagedata.com/api","licenses":[{"name":"see attribution guide","url":"https://opencagedata.com/credits"}],
+            "rate":{"limit":2500,"remaining":2499,"reset":1700000000},
+            "results":[{"annotations":{"DMS":{"lat":"23° 33' 41.04000'' S","lng":"46° 39' 21.24000'' W"},
+            "MGRS":"23KLP3330094478","Maidenhead":"GG66qk00aa","Mercator":{"x":-5191128.116,"y":-2683420.553},
+            "OSM":{"edit_url":"https://www.openstreetmap.org/edit?way=4273322","note_url":"https://www.openstreetmap.org/note/new#map=17/-23.56140/-46.65590","url":"https://www.openstreetmap.org/?mlat=-23.56140&mlon=-46.65590#map=17/-23.56140/-46.65590"},
+            "UN_M49":{"regions":{"AMERICAS":"019","BR":"076","LATIN_AMERICA":"419","SOUTH_AMERICA":"005","WORLD":"001"},"statistical_groupings":["LEDC"]},
+            "callingcode":55,"currency":{"alternate_symbols":[],"decimal_mark":",","html_entity":"R$","iso_code":"BRL","iso_numeric":"986","name":"Brazilian Real","smallest_denomination":5,"subunit":"Centavo","subunit_to_unit":100,"symbol":"R$","symbol_first":1,"thousands_separator":"."},
+            "flag":"🇧🇷","geohash":"6gyf4bf1n0vr","qibla":62.88,"roadinfo":{"drive_on":"right","road":"Avenida Paulista","speed_in":"km/h"},
+            "sun":{"rise":{"apparent":1700000000,"astronomical":1700000000,"civil":1700000000,"nautical":1700000000},"set":{"apparent":1700000000,"astronomical":1700000000,"civil":1700000000,"nautical":1700000000}},
+            "timezone":{"name":"America/Sao_Paulo","now_in_dst":0,"offset_sec":-10800,"offset_string":"-0300","short_name":"-03"},"what3words":{"words":"casa.mesa.livro"}},
+            "bounds":{"northeast":{"lat":-23.5604,"lng":-46.6549},"southwest":{"lat":-23.5624,"lng":-46.6569}},
+            "components":{"ISO_3166-1_alpha-2":"BR","_category":"road","_type":"road","city":"São Paulo","country":"Brasil","country_code":"br","road":"Avenida Paulista","state":"São Paulo","state_code":"SP"},
+            "confidence":9,"formatted":"Avenida Paulista, São Paulo - SP, Brasil","geometry":{"lat":-23.5614,"lng":-46.6559}}],
+            "status":{"code":200,"message":"OK"},"stay_informed":{"blog":"https://blog.opencagedata.com","mastodon":"https://en.osm.town/@opencage"},"thanks":"For using an OpenCage API","timestamp":{"created_http":"Mon, 10 Mar 2025 12:00:00 GMT","created_unix":1741608000},"total_results":1}
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] RESPOSTA_OSRM = """
+            {"code":"Ok","routes":[{"legs":[{"steps":[],"summary":"","weight":412.3,"duration":412.3,"distance":4123.6}],
+            "weight_name":"routability","weight":412.3,"duration":412.3,"distance":4123.6}],
+            "waypoints":[{"hint":"p8QAgP___38VAAAAFQAAAAAAAAAAAAAAFQAAAAAAAAAAAAAAAAAAAAEAAAD_bzD9kNyW_oBvMP2Q3Jb-AAAPAA==","distance":3.2,"name":"Avenida Paulista","location":[-46.6559,-23.5614]},
+            {"hint":"0cMAgP___38OAAAADgAAAAAAAAAAAAAADgAAAAAAAAAAAAAAAAAAAAEAAADtqjD9IBqX_oCqMP0gGpf-AAAPAA==","distance":5.1,"name":"Rua Augusta","location":[-46.6395,-23.5329]}]}
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper conversorJson = new ObjectMapper();
+    private final JsonFactory fabricaJson = conversorJson.getFactory();
+
+    @Benchmark
+    public Coordenadas coordenadasArvore() throws IOException {
+        JsonNode geometria = conversorJson.readTree(new String(RESPOSTA_OPENCAGE, StandardCharsets.UTF_8))
+                .get("results").get(0).path("geometry");
+        return new Coordenadas(geometria.path("lat").asDouble(), geometria.path("lng").asDouble());
+    }
+
+    @Benchmark
+    public Coordenadas coordenadasStreaming() throws IOException {
+        try (JsonParser parser = fabricaJson.createParser(new ByteArrayInputStream(RESPOSTA_OPENCAGE))) {
+            return LeitorRespostas.lerCoordenadas(parser);
+        }
+    }
+
+    @Benchmark
+    public double distanciaArvore() throws IOException {
+        return conversorJson.readTree(new String(RESPOSTA_OSRM, StandardCharsets.UTF_8))
+                .get("routes").get(0).get("distance").asDouble();
+    }
+
+    @Benchmark
+    public Double distanciaStreaming() throws IOException {
+        try (JsonParser parser = fabricaJson.createParser(new ByteArrayInputStream(RESPOSTA_OSRM))) {
+            return LeitorRespostas.lerDistancia(parser);
+        }
+    }
+
+}
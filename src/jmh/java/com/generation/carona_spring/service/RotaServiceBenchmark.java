@@ -0,0 +1,105 @@
+package com.generation.carona_spring.service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.generation.carona_spring.records.Coordenadas;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Mede os cálculos locais do RotaService (sem chamadas às APIs externas):
+ * preparação do endereço, velocidade média, tempo estimado e valor da viagem.
+ *
+ * Fica no mesmo pacote do RotaService para acessar os métodos package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RotaServiceBenchmark {
+
+    private RotaService rotaService;
+
+    private final LocalDateTime picoManha = LocalDateTime.of(2025, 3, 10, 7, 30);
+    private final LocalDateTime horarioNormal = LocalDateTime.of(2025, 3, 10, 13, 0);
+    private final LocalDateTime fimDeSemana = LocalDateTime.of(2025, 3, 15, 10, 0);
+
+    private final Coordenadas partida = new Coordenadas(-23.5614, -46.6559);
+    private final Coordenadas destino = new Coordenadas(-23.5329, -46.6395);
+
+    @Setup
+    public void setup() {
+        VelocidadeHistoricaService velocidadeHistoricaService = criarVelocidadeHistoricaService();
+
+        // Histórico apenas no pico da manhã: os demais horários usam só a tabela
+        for (int i = 0; i < 20; i++) {
+            velocidadeHistoricaService.registrar(partida.latitude(), partida.longitude(),
+                    destino.latitude(), destino.longitude(), picoManha, 5.0, 14.0 + i % 4);
+        }
+
+        rotaService = new RotaService(new RestTemplate(), new ObjectMapper(), new SimpleMeterRegistry(),
+                criarTarifaService(), velocidadeHistoricaService, "http://localhost", "http://localhost", 0, 10000, 1440, 10, 50);
+    }
+
+    @Benchmark
+    public String prepararEnderecoComNumero() {
+        return rotaService.prepararEndereco("Avenida Paulista, 1000");
+    }
+
+    @Benchmark
+    public String prepararEnderecoSemNumero() {
+        return rotaService.prepararEndereco("Rua Augusta");
+    }
+
+    @Benchmark
+    public double velocidadePicoManha() {
+        return rotaService.definirVelocidadeMedia(partida, destino, picoManha);
+    }
+
+    @Benchmark
+    public double velocidadeHorarioNormal() {
+        return rotaService.definirVelocidadeMedia(partida, destino, horarioNormal);
+    }
+
+    @Benchmark
+    public double velocidadeFimDeSemana() {
+        return rotaService.definirVelocidadeMedia(partida, destino, fimDeSemana);
+    }
+
+    @Benchmark
+    public double tempoViagem() {
+        return rotaService.calcularTempoViagem(12.5, 30.0);
+    }
+
+    @Benchmark
+    public double valorViagem() {
+        return rotaService.calcularValorViagem(12.5, 25.0, picoManha);
+    }
+
+    static TarifaService criarTarifaService() {
+        return new TarifaService(new DefaultResourceLoader(), new ObjectMapper(), "classpath:tarifas.json");
+    }
+
+    static VelocidadeHistoricaService criarVelocidadeHistoricaService() {
+        return new VelocidadeHistoricaService(null, new SimpleMeterRegistry(), true,
+                -24.1, -23.3, -47.2, -46.2, 0.05, 30, 3, 3, 130);
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.generation.carona_spring.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Compara o caminho quente antigo do RotaService com o atual:
+ *
+ * - Regex compilada a cada chamada (antigo) x Pattern pré-compilado (atual)
+ * - Log INFO com valores double (antigo, boxing mesmo com o nível desligado)
+ *   x log DEBUG protegido por isDebugEnabled() (atual)
+ *
+ * O logger fica em WARN, como no perfil prod. Para ver também a alocação por operação:
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=RotaServiceHotPathBenchmark -Djmh.argumentos="-prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RotaServiceHotPathBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(RotaServiceHotPathBenchmark.class);
+
+    private static final String ENDERECO = "Avenida Paulista, 1000";
+
+    private RotaService rotaService;
+    private double distanciaKm = 12.5;
+    private double tempoMinutos = 25.0;
+    private double valorTotal = 27.35;
+
+    @Setup
+    public void setup() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("com.generation.carona_spring")).setLevel(Level.WARN);
+        rotaService = new RotaService(new RestTemplate(), new ObjectMapper(), new SimpleMeterRegistry(),
+                RotaServiceBenchmark.criarTarifaService(), RotaServiceBenchmark.criarVelocidadeHistoricaService(),
+                "http://localhost", "http://localhost", 0, 10000, 1440, 10, 50);
+    }
+
+    @Benchmark
+    public String enderecoRegexCompiladaPorChamada() {
+        String enderecoLimpo = ENDERECO.trim();
+        Pattern pattern = Pattern.compile("(.*?)[,\\s]+\\d+$");
+        Matcher matcher = pattern.matcher(enderecoLimpo);
+
+        if (matcher.matches()) {
+            return matcher.group(1);
+        }
+
+        return enderecoLimpo;
+    }
+
+    @Benchmark
+    public String enderecoRegexPreCompilada() {
+        return rotaService.prepararEndereco(ENDERECO);
+    }
+
+    @Benchmark
+    public void logInfoComBoxing() {
+        logger.info("Rota calculada com sucesso: {}km, {}min, R$ {}", distanciaKm, tempoMinutos, valorTotal);
+    }
+
+    @Benchmark
+    public void logDebugProtegido() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Rota calculada com sucesso: {}km, {}min, R$ {}", distanciaKm, tempoMinutos, valorTotal);
+        }
+    }
+
+}
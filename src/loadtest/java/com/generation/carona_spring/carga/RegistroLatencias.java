@@ -0,0 +1,75 @@
+package com.generation.carona_spring.carga;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acumula as latências (em nanossegundos) e os erros de um endpoint
+ * e calcula vazão e percentis ao final do teste.
+ */
+public class RegistroLatencias {
+
+    private final String endpoint;
+
+    private long[] latencias = new long[1024];
+    private int quantidade;
+    private long erros;
+
+    public RegistroLatencias(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public synchronized void registrar(long nanos, boolean sucesso) {
+        if (quantidade == latencias.length) {
+            latencias = Arrays.copyOf(latencias, quantidade * 2);
+        }
+
+        latencias[quantidade++] = nanos;
+
+        if (!sucesso) {
+            erros++;
+        }
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Resume as medições: requisições, erros, vazão (req/s) e p50/p99/p999/máximo em milissegundos.
+     */
+    public synchronized Map<String, Object> resumir(double duracaoSegundos) {
+        long[] ordenadas = Arrays.copyOf(latencias, quantidade);
+        Arrays.sort(ordenadas);
+
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        resumo.put("requisicoes", quantidade);
+        resumo.put("erros", erros);
+        resumo.put("vazao", arredondar(quantidade / duracaoSegundos));
+        resumo.put("p50Ms", percentilMs(ordenadas, 0.50));
+        resumo.put("p99Ms", percentilMs(ordenadas, 0.99));
+        resumo.put("p999Ms", percentilMs(ordenadas, 0.999));
+        resumo.put("maxMs", ordenadas.length == 0 ? 0.0 : paraMs(ordenadas[ordenadas.length - 1]));
+        return resumo;
+    }
+
+    private static double percentilMs(long[] ordenadas, double percentil) {
+        if (ordenadas.length == 0) {
+            return 0.0;
+        }
+
+        int indice = (int) Math.ceil(percentil * ordenadas.length) - 1;
+        return paraMs(ordenadas[Math.max(0, indice)]);
+    }
+
+    private static double paraMs(long nanos) {
+        return arredondar(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static double arredondar(double valor) {
+        return Math.round(valor * 100.0) / 100.0;
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.generation.carona_spring.carga;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Servidores HTTP locais que simulam as APIs OpenCage e OSRM.
+ *
+ * As respostas são determinísticas (as coordenadas derivam do texto do endereço),
+ * com latência e taxa de erro configuráveis. Endereços que contêm "inexistente"
+ * retornam uma lista de resultados vazia, como a OpenCage.
+ */
+public class StubApisExternas implements AutoCloseable {
+
+    // Centro de São Paulo, usado como base para as coordenadas simuladas
+    private static final double LATITUDE_BASE = -23.5505;
+    private static final double LONGITUDE_BASE = -46.6333;
+    private static final double RAIO_TERRA_KM = 6371.0;
+
+    private final HttpServer servidorOpenCage;
+    private final HttpServer servidorOsrm;
+    private final long latenciaOpenCageMs;
+    private final long latenciaOsrmMs;
+    private final double taxaErro;
+
+    public StubApisExternas(long latenciaOpenCageMs, long latenciaOsrmMs, double taxaErro) throws IOException {
+        this.latenciaOpenCageMs = latenciaOpenCageMs;
+        this.latenciaOsrmMs = latenciaOsrmMs;
+        this.taxaErro = taxaErro;
+
+        this.servidorOpenCage = criarServidor();
+        this.servidorOpenCage.createContext("/geocode/v1/json", this::responderGeocodificacao);
+        this.servidorOpenCage.start();
+
+        this.servidorOsrm = criarServidor();
+        this.servidorOsrm.createContext("/route/v1/driving/", this::responderRota);
+        this.servidorOsrm.createContext("/table/v1/driving/", this::responderTabela);
+        this.servidorOsrm.start();
+    }
+
+    public String getUrlOpenCage() {
+        return "http://127.0.0.1:" + servidorOpenCage.getAddress().getPort();
+    }
+
+    public String getUrlOsrm() {
+        return "http://127.0.0.1:" + servidorOsrm.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        servidorOpenCage.stop(0);
+        servidorOsrm.stop(0);
+    }
+
+    private static HttpServer criarServidor() throws IOException {
+        HttpServer servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        return servidor;
+    }
+
+    private void responderGeocodificacao(HttpExchange troca) throws IOException {
+        if (simularAtrasoOuErro(troca, latenciaOpenCageMs)) {
+            return;
+        }
+
+        String endereco = extrairParametro(troca.getRequestURI().getRawQuery(), "q");
+
+        if (endereco.toLowerCase(Locale.ROOT).contains("inexistente")) {
+            responder(troca, 200, "{\"results\":[],\"status\":{\"code\":200,\"message\":\"OK\"},\"total_results\":0}");
+            return;
+        }
+
+        int hash = endereco.hashCode();
+        double latitude = LATITUDE_BASE + ((hash & 0xFFFF) / 65535.0 - 0.5) * 0.2;
+        double longitude = LONGITUDE_BASE + (((hash >>> 16) & 0xFFFF) / 65535.0 - 0.5) * 0.2;
+
+        // Inclui um bloco de anotações semelhante ao da OpenCage, que domina o tamanho da resposta
+        String json = String.format(Locale.US, """
+                {"documentation":"https://opencagedata.com/api","licenses":[{"name":"see attribution guide","url":"https://opencagedata.com/credits"}],
+                "rate":{"limit":2500,"remaining":2499,"reset":1700000000},
+                "results":[{"annotations":{"DMS":{"lat":"23° 33' 1.80000'' S","lng":"46° 38' 0.00000'' W"},
+                "MGRS":"23KLP3330094478","Maidenhead":"GG66qk00aa","Mercator":{"x":-5191128.116,"y":-2683420.553},
+                "OSM":{"edit_url":"https://www.openstreetmap.org/edit","note_url":"https://www.openstreetmap.org/note/new","url":"https://www.openstreetmap.org/"},
+                "UN_M49":{"regions":{"AMERICAS":"019","BR":"076","LATIN_AMERICA":"419","SOUTH_AMERICA":"005","WORLD":"001"},"statistical_groupings":["LEDC"]},
+                "callingcode":55,"currency":{"alternate_symbols":[],"decimal_mark":",","html_entity":"R$","iso_code":"BRL","iso_numeric":"986","name":"Brazilian Real","smallest_denomination":5,"subunit":"Centavo","subunit_to_unit":100,"symbol":"R$","symbol_first":1,"thousands_separator":"."},
+                "flag":"🇧🇷","geohash":"6gyf4bf1n0vr","qibla":62.88,"roadinfo":{"drive_on":"right","road":"%s","speed_in":"km/h"},
+                "sun":{"rise":{"apparent":1700000000,"astronomical":1700000000,"civil":1700000000,"nautical":1700000000},"set":{"apparent":1700000000,"astronomical":1700000000,"civil":1700000000,"nautical":1700000000}},
+                "timezone":{"name":"America/Sao_Paulo","now_in_dst":0,"offset_sec":-10800,"offset_string":"-0300","short_name":"-03"},"what3words":{"words":"simulado.teste.carga"}},
+                "bounds":{"northeast":{"lat":%.7f,"lng":%.7f},"southwest":{"lat":%.7f,"lng":%.7f}},
+                "components":{"ISO_3166-1_alpha-2":"BR","_category":"road","_type":"road","city":"São Paulo","country":"Brasil","country_code":"br","road":"%s","state":"São Paulo","state_code":"SP"},
+                "confidence":9,"formatted":"%s, São Paulo - SP, Brasil","geometry":{"lat":%.7f,"lng":%.7f}}],
+                "status":{"code":200,"message":"OK"},"stay_informed":{"blog":"https://blog.opencagedata.com"},"thanks":"For using an OpenCage API","total_results":1}
+                """, endereco, latitude + 0.001, longitude + 0.001, latitude - 0.001, longitude - 0.001,
+                endereco, endereco, latitude, longitude);
+
+        responder(troca, 200, json);
+    }
+
+    private void responderRota(HttpExchange troca) throws IOException {
+        if (simularAtrasoOuErro(troca, latenciaOsrmMs)) {
+            return;
+        }
+
+        // Formato do caminho: /route/v1/driving/lng,lat;lng,lat
+        String caminho = troca.getRequestURI().getPath();
+        String[] pontos = caminho.substring(caminho.lastIndexOf('/') + 1).split(";");
+        String[] origem = pontos[0].split(",");
+        String[] destino = pontos[1].split(",");
+
+        double distanciaMetros = distanciaKm(
+                Double.parseDouble(origem[1]), Double.parseDouble(origem[0]),
+                Double.parseDouble(destino[1]), Double.parseDouble(destino[0])) * 1300.0;
+
+        String json = String.format(Locale.US,
+                "{\"code\":\"Ok\",\"routes\":[{\"legs\":[{\"steps\":[],\"summary\":\"\",\"weight\":%.1f,\"duration\":%.1f,\"distance\":%.1f}],"
+                        + "\"weight_name\":\"routability\",\"weight\":%.1f,\"duration\":%.1f,\"distance\":%.1f}],\"waypoints\":[]}",
+                distanciaMetros / 10, distanciaMetros / 10, distanciaMetros,
+                distanciaMetros / 10, distanciaMetros / 10, distanciaMetros);
+
+        responder(troca, 200, json);
+    }
+
+    private void responderTabela(HttpExchange troca) throws IOException {
+        if (simularAtrasoOuErro(troca, latenciaOsrmMs)) {
+            return;
+        }
+
+        // Formato do caminho: /table/v1/driving/lng,lat;lng,lat;...?sources=0;1&destinations=2;3
+        String caminho = troca.getRequestURI().getPath();
+        String[] pontos = caminho.substring(caminho.lastIndexOf('/') + 1).split(";");
+        int[] origens = indicesTabela(extrairParametro(troca.getRequestURI().getRawQuery(), "sources"), pontos.length);
+        int[] destinos = indicesTabela(extrairParametro(troca.getRequestURI().getRawQuery(), "destinations"), pontos.length);
+        StringBuilder distancias = new StringBuilder();
+
+        for (int i = 0; i < origens.length; i++) {
+            String[] origem = pontos[origens[i]].split(",");
+            distancias.append(i == 0 ? "[" : ",[");
+
+            for (int j = 0; j < destinos.length; j++) {
+                String[] destino = pontos[destinos[j]].split(",");
+                double distanciaMetros = distanciaKm(
+                        Double.parseDouble(origem[1]), Double.parseDouble(origem[0]),
+                        Double.parseDouble(destino[1]), Double.parseDouble(destino[0])) * 1300.0;
+                distancias.append(j == 0 ? "" : ",").append(String.format(Locale.US, "%.1f", distanciaMetros));
+            }
+
+            distancias.append(']');
+        }
+
+        responder(troca, 200, "{\"code\":\"Ok\",\"distances\":[" + distancias + "],\"sources\":[],\"destinations\":[]}");
+    }
+
+    // Índices separados por ';' ou, sem o parâmetro, todos os pontos
+    private static int[] indicesTabela(String parametro, int pontos) {
+        if (parametro.isEmpty()) {
+            return IntStream.range(0, pontos).toArray();
+        }
+
+        return Arrays.stream(parametro.split(";")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    /**
+     * Aplica a latência configurada (com variação de até 20%) e, conforme a
+     * taxa de erro, responde 503. Retorna true se a resposta já foi enviada.
+     */
+    private boolean simularAtrasoOuErro(HttpExchange troca, long latenciaMs) throws IOException {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+
+        if (latenciaMs > 0) {
+            try {
+                Thread.sleep(latenciaMs + aleatorio.nextLong(latenciaMs / 5 + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (aleatorio.nextDouble() < taxaErro) {
+            responder(troca, 503, "{\"status\":{\"code\":503,\"message\":\"Erro simulado\"}}");
+            return true;
+        }
+
+        return false;
+    }
+
+    private static void responder(HttpExchange troca, int status, String json) throws IOException {
+        byte[] corpo = json.getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        troca.sendResponseHeaders(status, corpo.length);
+
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(corpo);
+        }
+    }
+
+    private static String extrairParametro(String consulta, String nome) {
+        if (consulta != null) {
+            for (String par : consulta.split("&")) {
+                int separador = par.indexOf('=');
+
+                if (separador > 0 && par.substring(0, separador).equals(nome)) {
+                    return URLDecoder.decode(par.substring(separador + 1), StandardCharsets.UTF_8);
+                }
+            }
+        }
+
+        return "";
+    }
+
+    static double distanciaKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double deltaLatitude = Math.toRadians(latitude2 - latitude1);
+        double deltaLongitude = Math.toRadians(longitude2 - longitude1);
+
+        double a = Math.sin(deltaLatitude / 2) * Math.sin(deltaLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(deltaLongitude / 2) * Math.sin(deltaLongitude / 2);
+
+        return RAIO_TERRA_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+}
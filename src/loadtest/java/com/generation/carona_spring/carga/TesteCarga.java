@@ -0,0 +1,374 @@
+package com.generation.carona_spring.carga;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.generation.carona_spring.CaronaSpringApplication;
+
+/**
+ * Teste de carga de ponta a ponta.
+ *
+ * Sobe a aplicação com banco H2 em memória (esquema criado pelas migrações do
+ * Flyway) e as APIs OpenCage/OSRM simuladas (StubApisExternas), cadastra
+ * usuários e veículos e gera tráfego misto de
+ * login, criação, listagem e busca de viagens. Ao final, imprime e grava em JSON
+ * a vazão e os percentis p50/p99/p999 de cada endpoint, além das métricas do pool de
+ * conexões (espera, tempo de uso e timeouts) no período medido.
+ *
+ * Parâmetros (-D na linha de comando do Maven):
+ * - carga.duracao-segundos: duração da medição (padrão 30)
+ * - carga.aquecimento-segundos: duração do aquecimento, descartado (padrão 10)
+ * - carga.clientes: clientes simultâneos (padrão 50)
+ * - carga.mix: pesos das operações (padrão login=10,criar=10,listar=50,buscar=30)
+ * - carga.latencia-opencage-ms / carga.latencia-osrm-ms: latência simulada (padrão 50 / 80)
+ * - carga.taxa-erro: fração das chamadas externas que retornam 503 (padrão 0.01)
+ * - carga.pausa-ms: pausa do RotaService entre chamadas externas (padrão 0)
+ * - carga.pool-maximo: tamanho do pool de conexões (padrão: o do application.properties)
+ * - carga.jdbc-url / carga.jdbc-usuario / carga.jdbc-senha: banco MySQL externo no lugar do H2
+ *   (use um banco descartável: as migrações são aplicadas e as tabelas recebem os dados do teste)
+ * - carga.resultado: arquivo JSON de saída (padrão target/carga-resultado.json)
+ */
+public class TesteCarga {
+
+    private static final String SENHA = "senha-carga-123";
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String[] DESTINOS = {
+        "Rua Augusta", "Avenida Paulista", "Rua Oscar Freire", "Avenida Faria Lima",
+        "Rua da Consolação", "Avenida Rebouças", "Rua Vergueiro", "Avenida Ibirapuera"
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient clienteHttp = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private final String urlBase;
+    private final List<String> usuarios = new ArrayList<>();
+    private final List<String> tokens = new ArrayList<>();
+    private final List<Long> veiculos = new ArrayList<>();
+    private final List<AtomicInteger> viagensCriadas = new ArrayList<>();
+    private final Map<String, RegistroLatencias> registros = new LinkedHashMap<>();
+    private final MeterRegistry metricas;
+
+    private volatile boolean medindo;
+    private AmostraPool poolInicio;
+
+    public TesteCarga(String urlBase, MeterRegistry metricas) {
+        this.urlBase = urlBase;
+        this.metricas = metricas;
+        for (String endpoint : List.of("login", "criar", "listar", "buscar")) {
+            registros.put(endpoint, new RegistroLatencias(endpoint));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int duracaoSegundos = Integer.getInteger("carga.duracao-segundos", 30);
+        int aquecimentoSegundos = Integer.getInteger("carga.aquecimento-segundos", 10);
+        int clientes = Integer.getInteger("carga.clientes", 50);
+        long latenciaOpenCageMs = Long.getLong("carga.latencia-opencage-ms", 50);
+        long latenciaOsrmMs = Long.getLong("carga.latencia-osrm-ms", 80);
+        double taxaErro = Double.parseDouble(System.getProperty("carga.taxa-erro", "0.01"));
+        int[] pesos = lerMix(System.getProperty("carga.mix", "login=10,criar=10,listar=50,buscar=30"));
+        Path resultado = Path.of(System.getProperty("carga.resultado", "target/carga-resultado.json"));
+
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        try (StubApisExternas stubs = new StubApisExternas(latenciaOpenCageMs, latenciaOsrmMs, taxaErro)) {
+
+            // Passadas como argumentos para prevalecer sobre o application.properties
+            String[] argumentos = propriedadesAplicacao(stubs).entrySet().stream()
+                    .map(propriedade -> "--" + propriedade.getKey() + "=" + propriedade.getValue())
+                    .toArray(String[]::new);
+
+            ConfigurableApplicationContext aplicacao = new SpringApplicationBuilder(CaronaSpringApplication.class)
+                    .run(argumentos);
+
+            try {
+                String porta = aplicacao.getEnvironment().getProperty("local.server.port");
+                TesteCarga teste = new TesteCarga("http://127.0.0.1:" + porta, aplicacao.getBean(MeterRegistry.class));
+
+                teste.prepararDados(clientes);
+                teste.executar(clientes, pesos, aquecimentoSegundos, duracaoSegundos);
+                teste.relatar(duracaoSegundos, clientes, resultado);
+            } finally {
+                aplicacao.close();
+            }
+        }
+
+        System.exit(0);
+    }
+
+    private static Map<String, String> propriedadesAplicacao(StubApisExternas stubs) {
+        Map<String, String> propriedades = new LinkedHashMap<>();
+        propriedades.put("server.port", "0");
+
+        String urlJdbc = System.getProperty("carga.jdbc-url");
+
+        if (urlJdbc == null) {
+            // IGNORE_UNKNOWN_SETTINGS: o H2 recebe as propriedades do driver MySQL configuradas no pool
+            propriedades.put("spring.datasource.url",
+                    "jdbc:h2:mem:carga;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;IGNORE_UNKNOWN_SETTINGS=TRUE");
+            propriedades.put("spring.datasource.driver-class-name", "org.h2.Driver");
+            propriedades.put("spring.datasource.username", "sa");
+            propriedades.put("spring.datasource.password", "");
+        } else {
+            propriedades.put("spring.datasource.url", urlJdbc);
+            propriedades.put("spring.datasource.username", System.getProperty("carga.jdbc-usuario", "root"));
+            propriedades.put("spring.datasource.password", System.getProperty("carga.jdbc-senha", "root"));
+        }
+
+        if (System.getProperty("carga.pool-maximo") != null) {
+            propriedades.put("spring.datasource.hikari.maximum-pool-size", System.getProperty("carga.pool-maximo"));
+            propriedades.put("spring.datasource.hikari.minimum-idle", System.getProperty("carga.pool-maximo"));
+        }
+
+        propriedades.put("spring.jpa.show-sql", "false");
+        propriedades.put("rota.opencage.url-base", stubs.getUrlOpenCage());
+        propriedades.put("rota.osrm.url-base", stubs.getUrlOsrm());
+        propriedades.put("rota.pausa-ms", System.getProperty("carga.pausa-ms", "0"));
+        // Todo o tráfego sai do mesmo IP: o limite por IP não pode interferir na medição
+        propriedades.put("seguranca.login.max-tentativas-ip", "1000000000");
+        propriedades.put("logging.level.com.generation.carona_spring", System.getProperty("carga.nivel-log", "WARN"));
+        return propriedades;
+    }
+
+    private static int[] lerMix(String mix) {
+        int[] pesos = new int[4];
+        List<String> operacoes = List.of("login", "criar", "listar", "buscar");
+
+        for (String item : mix.split(",")) {
+            String[] partes = item.trim().split("=");
+            pesos[operacoes.indexOf(partes[0].trim())] = Integer.parseInt(partes[1].trim());
+        }
+
+        return pesos;
+    }
+
+    /**
+     * Cadastra um usuário e um veículo por cliente (obtendo o token de cada um).
+     */
+    private void prepararDados(int clientes) throws IOException, InterruptedException {
+        for (int i = 0; i < clientes; i++) {
+            String usuario = "carga" + i + "@email.com";
+            enviar("POST", "/usuarios/cadastrar", null, String.format(
+                    "{\"nome\":\"Cliente %d\",\"usuario\":\"%s\",\"senha\":\"%s\"}", i, usuario, SENHA));
+
+            HttpResponse<String> login = enviar("POST", "/usuarios/logar", null,
+                    String.format("{\"usuario\":\"%s\",\"senha\":\"%s\"}", usuario, SENHA));
+
+            usuarios.add(usuario);
+            tokens.add(objectMapper.readTree(login.body()).path("token").asText());
+        }
+
+        for (int i = 0; i < clientes; i++) {
+            HttpResponse<String> veiculo = enviar("POST", "/veiculos", tokens.get(0), String.format(
+                    "{\"modelo\":\"Modelo %d\",\"placa\":\"CAR%04d\",\"foto\":\"https://i.imgur.com/carga.png\"}", i, i));
+            veiculos.add(objectMapper.readTree(veiculo.body()).path("id").asLong());
+            viagensCriadas.add(new AtomicInteger());
+        }
+    }
+
+    private void executar(int clientes, int[] pesos, int aquecimentoSegundos, int duracaoSegundos)
+            throws InterruptedException {
+
+        long fimAquecimento = System.nanoTime() + TimeUnit.SECONDS.toNanos(aquecimentoSegundos);
+        long fim = fimAquecimento + TimeUnit.SECONDS.toNanos(duracaoSegundos);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clientes; i++) {
+                int cliente = i;
+                executor.submit(() -> executarCliente(cliente, pesos, fim));
+            }
+
+            System.out.printf("Aquecimento de %d s com %d clientes...%n", aquecimentoSegundos, clientes);
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, fimAquecimento - System.nanoTime()));
+
+            poolInicio = amostrarPool();
+            medindo = true;
+            System.out.printf("Medindo por %d s...%n", duracaoSegundos);
+        }
+
+        medindo = false;
+    }
+
+    private void executarCliente(int cliente, int[] pesos, long fim) {
+        int total = pesos[0] + pesos[1] + pesos[2] + pesos[3];
+
+        while (System.nanoTime() < fim) {
+            int sorteio = ThreadLocalRandom.current().nextInt(total);
+            String token = tokens.get(cliente);
+
+            if ((sorteio -= pesos[0]) < 0) {
+                medir("login", () -> enviar("POST", "/usuarios/logar", null,
+                        String.format("{\"usuario\":\"%s\",\"senha\":\"%s\"}", usuarios.get(cliente), SENHA)));
+            } else if ((sorteio -= pesos[1]) < 0) {
+                medir("criar", () -> enviar("POST", "/viagens", token, novaViagem(cliente)));
+            } else if ((sorteio -= pesos[2]) < 0) {
+                medir("listar", () -> enviar("GET", "/viagens", token, null));
+            } else {
+                String destino = DESTINOS[ThreadLocalRandom.current().nextInt(DESTINOS.length)];
+                medir("buscar", () -> enviar("GET", "/viagens/destino/"
+                        + URLEncoder.encode(destino, StandardCharsets.UTF_8).replace("+", "%20"), token, null));
+            }
+        }
+    }
+
+    /**
+     * Viagem com o veículo do cliente, partindo 6 horas após a anterior dele: as viagens
+     * de um veículo não se sobrepõem e não são recusadas pela agenda.
+     */
+    private String novaViagem(int cliente) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        LocalDateTime dataPartida = LocalDateTime.now().plusDays(1).withHour(0).withMinute(0).withSecond(0).withNano(0)
+                .plusHours(6L * viagensCriadas.get(cliente).getAndIncrement());
+
+        return String.format("{\"partida\":\"Rua %d, %d\",\"destino\":\"%s, %d\",\"dataPartida\":\"%s\",\"vagas\":4,\"veiculo\":{\"id\":%d}}",
+                aleatorio.nextInt(500), aleatorio.nextInt(2000),
+                DESTINOS[aleatorio.nextInt(DESTINOS.length)], aleatorio.nextInt(2000),
+                dataPartida.format(FORMATO_DATA), veiculos.get(cliente));
+    }
+
+    private void medir(String endpoint, Requisicao requisicao) {
+        long inicio = System.nanoTime();
+        boolean sucesso;
+
+        try {
+            sucesso = requisicao.enviar().statusCode() < 400;
+        } catch (IOException e) {
+            sucesso = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        if (medindo) {
+            registros.get(endpoint).registrar(System.nanoTime() - inicio, sucesso);
+        }
+    }
+
+    private HttpResponse<String> enviar(String metodo, String caminho, String token, String corpo)
+            throws IOException, InterruptedException {
+
+        HttpRequest.Builder requisicao = HttpRequest.newBuilder(URI.create(urlBase + caminho))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+
+        if (token != null) {
+            requisicao.header("Authorization", token);
+        }
+
+        requisicao.method(metodo, corpo == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(corpo));
+
+        return clienteHttp.send(requisicao.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void relatar(int duracaoSegundos, int clientes, Path resultado) throws IOException {
+        Map<String, Object> relatorio = new LinkedHashMap<>();
+        relatorio.put("duracaoSegundos", duracaoSegundos);
+        relatorio.put("clientes", clientes);
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        System.out.printf("%n%-8s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requisicoes", "erros", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+
+        for (RegistroLatencias registro : registros.values()) {
+            Map<String, Object> resumo = registro.resumir(duracaoSegundos);
+            endpoints.put(registro.getEndpoint(), resumo);
+
+            System.out.printf("%-8s %10s %8s %10s %10s %10s %10s %10s%n", registro.getEndpoint(),
+                    resumo.get("requisicoes"), resumo.get("erros"), resumo.get("vazao"),
+                    resumo.get("p50Ms"), resumo.get("p99Ms"), resumo.get("p999Ms"), resumo.get("maxMs"));
+        }
+
+        relatorio.put("endpoints", endpoints);
+
+        Map<String, Object> pool = resumirPool(amostrarPool().menos(poolInicio));
+        relatorio.put("pool", pool);
+        System.out.printf("%npool: %s conexões obtidas, espera média %s ms (máx. %s ms), uso médio %s ms, %s timeouts%n",
+                pool.get("aquisicoes"), pool.get("esperaMediaMs"), pool.get("esperaMaxMs"),
+                pool.get("usoMedioMs"), pool.get("timeouts"));
+
+        Files.createDirectories(resultado.toAbsolutePath().getParent());
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(resultado.toFile(), relatorio);
+        System.out.printf("%nResultado gravado em %s%n", resultado);
+    }
+
+    /**
+     * Totais acumulados das métricas do HikariCP (hikaricp.connections.*); a diferença
+     * entre duas amostras isola o período medido.
+     */
+    private AmostraPool amostrarPool() {
+        Timer espera = metricas.find("hikaricp.connections.acquire").timer();
+        Timer uso = metricas.find("hikaricp.connections.usage").timer();
+        Counter timeouts = metricas.find("hikaricp.connections.timeout").counter();
+
+        return new AmostraPool(
+                espera == null ? 0 : espera.count(),
+                espera == null ? 0 : espera.totalTime(TimeUnit.MILLISECONDS),
+                espera == null ? 0 : espera.max(TimeUnit.MILLISECONDS),
+                uso == null ? 0 : uso.count(),
+                uso == null ? 0 : uso.totalTime(TimeUnit.MILLISECONDS),
+                timeouts == null ? 0 : (long) timeouts.count());
+    }
+
+    private static Map<String, Object> resumirPool(AmostraPool amostra) {
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        resumo.put("aquisicoes", amostra.aquisicoes());
+        resumo.put("esperaMediaMs", arredondar(amostra.aquisicoes() == 0 ? 0 : amostra.esperaMs() / amostra.aquisicoes()));
+        resumo.put("esperaMaxMs", arredondar(amostra.esperaMaxMs()));
+        resumo.put("usoMedioMs", arredondar(amostra.usos() == 0 ? 0 : amostra.usoMs() / amostra.usos()));
+        resumo.put("timeouts", amostra.timeouts());
+        return resumo;
+    }
+
+    private static double arredondar(double valor) {
+        return Math.round(valor * 100) / 100.0;
+    }
+
+    private record AmostraPool(long aquisicoes, double esperaMs, double esperaMaxMs,
+                               long usos, double usoMs, long timeouts) {
+
+        AmostraPool menos(AmostraPool inicio) {
+            // O máximo do Timer é de uma janela recente, não acumulado: vale o da amostra final
+            return new AmostraPool(aquisicoes - inicio.aquisicoes, esperaMs - inicio.esperaMs, esperaMaxMs,
+                    usos - inicio.usos, usoMs - inicio.usoMs, timeouts - inicio.timeouts);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Requisicao {
+        HttpResponse<String> enviar() throws IOException, InterruptedException;
+    }
+
+}
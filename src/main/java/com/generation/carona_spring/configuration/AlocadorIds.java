@@ -0,0 +1,123 @@
+package com.generation.carona_spring.configuration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reserva ids em blocos na tabela tb_sequencias (hi/lo), para que o Hibernate conheça o id
+ * antes do insert e possa agrupar os inserts em lotes JDBC.
+ *
+ * Cada bloco é reservado em uma transação curta própria, em um DataSource separado do pool
+ * da aplicação: a reserva nunca espera por uma conexão do pool principal, ocupado pelas
+ * transações que estão inserindo. Com o MySQL sem sequências, a linha de cada tabela em
+ * tb_sequencias é travada (SELECT ... FOR UPDATE) enquanto avança, o que mantém os blocos
+ * distintos entre instâncias da aplicação.
+ *
+ * Os ids de um bloco não usados até o desligamento são perdidos; os ids crescem, mas podem
+ * ter lacunas.
+ */
+public class AlocadorIds implements AutoCloseable {
+
+    /** Propriedade do Hibernate com a instância usada pelo GeradorIdEmBlocos. */
+    public static final String PROPRIEDADE = "carona.ids.alocador";
+
+    private static final Logger logger = LoggerFactory.getLogger(AlocadorIds.class);
+
+    private static final String SQL_LER = "SELECT proximo_valor FROM tb_sequencias WHERE nome = ? FOR UPDATE";
+    private static final String SQL_AVANCAR = "UPDATE tb_sequencias SET proximo_valor = ? WHERE nome = ?";
+
+    private final DataSource dataSource;
+    private final int tamanhoBloco;
+    private final Map<String, Bloco> blocos = new ConcurrentHashMap<>();
+
+    public AlocadorIds(DataSource dataSource, int tamanhoBloco) {
+        this.dataSource = dataSource;
+        this.tamanhoBloco = tamanhoBloco;
+    }
+
+    /**
+     * Próximo id da tabela, reservando um novo bloco quando o atual acaba.
+     */
+    public long proximo(String nome) {
+        return blocos.computeIfAbsent(nome, Bloco::new).proximo();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (dataSource instanceof AutoCloseable fechavel) {
+            fechavel.close();
+        }
+    }
+
+    private long reservar(String nome) {
+        try (Connection conexao = dataSource.getConnection()) {
+            conexao.setAutoCommit(false);
+
+            try (PreparedStatement ler = conexao.prepareStatement(SQL_LER);
+                 PreparedStatement avancar = conexao.prepareStatement(SQL_AVANCAR)) {
+                ler.setString(1, nome);
+                long inicio;
+
+                try (ResultSet resultado = ler.executeQuery()) {
+                    if (!resultado.next()) {
+                        throw new IllegalStateException("Sequência ausente em tb_sequencias: " + nome);
+                    }
+                    inicio = resultado.getLong(1);
+                }
+
+                avancar.setLong(1, inicio + tamanhoBloco);
+                avancar.setString(2, nome);
+                avancar.executeUpdate();
+                conexao.commit();
+
+                logger.debug("Bloco de ids de {} reservado: {} a {}", nome, inicio, inicio + tamanhoBloco - 1);
+                return inicio;
+            } catch (SQLException | RuntimeException e) {
+                conexao.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Não foi possível reservar ids de " + nome, e);
+        }
+    }
+
+    /**
+     * Bloco atual de uma tabela. A trava é por tabela: a reserva de um bloco só faz esperar
+     * quem precisa de um id da mesma tabela.
+     */
+    private final class Bloco {
+
+        private final String nome;
+        private final ReentrantLock trava = new ReentrantLock();
+        private long proximo;
+        private long limite;
+
+        Bloco(String nome) {
+            this.nome = nome;
+        }
+
+        long proximo() {
+            trava.lock();
+            try {
+                if (proximo == limite) {
+                    proximo = reservar(nome);
+                    limite = proximo + tamanhoBloco;
+                }
+                return proximo++;
+            } finally {
+                trava.unlock();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.generation.carona_spring.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Alocador de ids em blocos das entidades com @IdEmBlocos, com um pool de conexões
+ * próprio e pequeno (banco.ids.*), entregue ao Hibernate pela propriedade
+ * AlocadorIds.PROPRIEDADE.
+ */
+@Configuration
+public class AlocadorIdsConfig {
+
+    @Bean(destroyMethod = "close")
+    AlocadorIds alocadorIds(DataSourceProperties propriedades,
+                            @Value("${banco.ids.pool-tamanho:2}") int tamanhoPool,
+                            @Value("${banco.ids.tamanho-bloco:50}") int tamanhoBloco) {
+
+        // Não é um bean DataSource: o pool principal continua sendo o da configuração automática
+        HikariDataSource dataSource = propriedades.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("carona-ids");
+        dataSource.setMaximumPoolSize(tamanhoPool);
+        dataSource.setMinimumIdle(1);
+        dataSource.setConnectionTimeout(5000);
+
+        return new AlocadorIds(dataSource, tamanhoBloco);
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer alocadorIdsHibernate(AlocadorIds alocadorIds) {
+        return propriedades -> propriedades.put(AlocadorIds.PROPRIEDADE, alocadorIds);
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.generation.carona_spring.configuration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Confere, na inicialização, se os índices das consultas frequentes existem no banco
+ * com as colunas esperadas (criados pelas migrações em db/migration).
+ *
+ * Se algum estiver ausente ou diferente, a aplicação não sobe: sem eles, listagens e
+ * buscas passam a ler a tabela inteira sem nenhum outro sinal.
+ */
+@Component
+@DependsOn("flywayInitializer") // os índices são criados pelas migrações
+public class VerificadorIndices {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerificadorIndices.class);
+
+    // tabela -> índice -> colunas, na ordem do índice
+    private static final Map<String, Map<String, List<String>>> ESPERADOS = Map.of(
+            "tb_viagens", Map.of(
+                    "idx_viagens_veiculo_data_partida", List.of("veiculo_id", "data_partida"),
+                    "idx_viagens_usuario_data_partida", List.of("usuario_id", "data_partida"),
+                    "idx_viagens_destino_data_partida", List.of("destino", "data_partida"),
+                    "idx_viagens_data_partida", List.of("data_partida")),
+            "tb_refresh_tokens", Map.of(
+                    "idx_refresh_tokens_familia", List.of("familia"),
+                    "idx_refresh_tokens_usuario", List.of("usuario_id"),
+                    "idx_refresh_tokens_expira_em", List.of("expira_em")),
+            "tb_reservas", Map.of(
+                    "idx_reservas_usuario", List.of("usuario_id")));
+
+    private final DataSource dataSource;
+    private final boolean habilitado;
+
+    public VerificadorIndices(DataSource dataSource,
+                              @Value("${banco.verificar-indices:true}") boolean habilitado) {
+        this.dataSource = dataSource;
+        this.habilitado = habilitado;
+    }
+
+    @PostConstruct
+    public void verificar() throws SQLException {
+        if (!habilitado) {
+            return;
+        }
+
+        List<String> problemas = new ArrayList<>();
+
+        try (Connection conexao = dataSource.getConnection()) {
+            DatabaseMetaData metadados = conexao.getMetaData();
+
+            for (Map.Entry<String, Map<String, List<String>>> tabela : ESPERADOS.entrySet()) {
+                Map<String, List<String>> existentes = lerIndices(conexao, metadados, tabela.getKey());
+
+                tabela.getValue().forEach((indice, colunas) -> {
+                    List<String> encontradas = existentes.get(indice);
+
+                    if (encontradas == null) {
+                        problemas.add(tabela.getKey() + "." + indice + " ausente");
+                    } else if (!encontradas.equals(colunas)) {
+                        problemas.add(tabela.getKey() + "." + indice + " com colunas " + encontradas
+                                + " (esperado " + colunas + ")");
+                    }
+                });
+            }
+        }
+
+        if (!problemas.isEmpty()) {
+            throw new IllegalStateException("Índices do banco de dados ausentes ou diferentes do esperado: "
+                    + String.join("; ", problemas) + ". Verifique as migrações em db/migration");
+        }
+
+        logger.info("Índices do banco de dados conferidos");
+    }
+
+    private static Map<String, List<String>> lerIndices(Connection conexao, DatabaseMetaData metadados,
+                                                        String tabela) throws SQLException {
+        // Nomes em minúsculas: o H2 os guarda em maiúsculas
+        Map<String, TreeMap<Short, String>> porIndice = new TreeMap<>();
+
+        for (String nome : List.of(tabela, tabela.toUpperCase(Locale.ROOT))) {
+            try (ResultSet indices = metadados.getIndexInfo(conexao.getCatalog(), null, nome, false, false)) {
+                while (indices.next()) {
+                    String indice = indices.getString("INDEX_NAME");
+                    String coluna = indices.getString("COLUMN_NAME");
+
+                    if (indice != null && coluna != null) {
+                        porIndice.computeIfAbsent(indice.toLowerCase(Locale.ROOT), chave -> new TreeMap<>())
+                                .put(indices.getShort("ORDINAL_POSITION"), coluna.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        }
+
+        Map<String, List<String>> resultado = new TreeMap<>();
+        porIndice.forEach((indice, colunas) -> resultado.put(indice, List.copyOf(colunas.values())));
+        return resultado;
+    }
+
+}
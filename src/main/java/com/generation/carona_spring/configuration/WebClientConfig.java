@@ -0,0 +1,50 @@
+package com.generation.carona_spring.configuration;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * WebClient das APIs externas (OpenCage e OSRM) usado pelo cálculo de rota não bloqueante.
+ *
+ * O pool de conexões é limitado e a fila de espera por conexão também: acima dela, ou
+ * depois de espera-conexao-ms na fila, a chamada falha em vez de acumular requisições sem
+ * limite (back-pressure). O timeout de resposta conta a partir do envio, sem o tempo na fila.
+ */
+@Configuration
+public class WebClientConfig {
+
+    // WebClient.builder() em vez do builder do Spring Boot, como o RestTemplate: o tempo das chamadas
+    // fica na métrica rota.http.cliente, e não em http.client.requests com uma tag por URL
+    @Bean
+    WebClient webClientRotas(@Value("${rota.reativo.conexoes:200}") int conexoes,
+                             @Value("${rota.reativo.fila-conexoes:5000}") int filaConexoes,
+                             @Value("${rota.reativo.espera-conexao-ms:5000}") long esperaConexaoMs,
+                             @Value("${rota.reativo.timeout-ms:3000}") long timeoutMs) {
+
+        ConnectionProvider provedor = ConnectionProvider.builder("rotas")
+                .maxConnections(conexoes)
+                .pendingAcquireMaxCount(filaConexoes)
+                .pendingAcquireTimeout(Duration.ofMillis(esperaConexaoMs))
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+
+        HttpClient clienteHttp = HttpClient.create(provedor)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) Math.min(timeoutMs, Integer.MAX_VALUE))
+                .responseTimeout(Duration.ofMillis(timeoutMs));
+
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(clienteHttp))
+                .defaultHeader("User-Agent", "ViagemApp/1.0")
+                .build();
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.generation.carona_spring.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.generation.carona_spring.model.Reserva;
+import com.generation.carona_spring.records.SolicitacaoReserva;
+import com.generation.carona_spring.service.ReservaService;
+
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("/viagens/{viagemId}/reservas")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class ReservaController {
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @GetMapping
+    public ResponseEntity<List<Reserva>> getAll(@PathVariable Long viagemId) {
+        return ResponseEntity.ok(reservaService.listar(viagemId));
+    }
+
+    @PostMapping
+    public ResponseEntity<Reserva> post(@PathVariable Long viagemId, @Valid @RequestBody SolicitacaoReserva solicitacao,
+                                        @AuthenticationPrincipal UserDetails usuario) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(reservaService.reservar(viagemId, usuario.getUsername(), solicitacao.lugares()));
+    }
+
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @DeleteMapping
+    public void delete(@PathVariable Long viagemId, @AuthenticationPrincipal UserDetails usuario) {
+        reservaService.cancelar(viagemId, usuario.getUsername());
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.generation.carona_spring.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.generation.carona_spring.model.RecalculoTarifa;
+import com.generation.carona_spring.service.RecalculoTarifaService;
+import com.generation.carona_spring.service.TabelaTarifaria;
+import com.generation.carona_spring.service.TarifaService;
+
+@RestController
+@RequestMapping("/tarifas")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class TarifaController {
+
+    @Autowired
+    private TarifaService tarifaService;
+
+    @Autowired
+    private RecalculoTarifaService recalculoTarifaService;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> get() {
+        return ResponseEntity.ok(descrever(tarifaService.getTabela()));
+    }
+
+    @PostMapping("/recarregar")
+    public ResponseEntity<Map<String, Object>> recarregar() {
+        return ResponseEntity.ok(descrever(tarifaService.recarregar()));
+    }
+
+    @GetMapping("/recalculo")
+    public ResponseEntity<RecalculoTarifa> getRecalculo() {
+        return recalculoTarifaService.consultarUltimo()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    @PostMapping("/recalculo")
+    public ResponseEntity<RecalculoTarifa> recalcular() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(recalculoTarifaService.iniciar());
+    }
+
+    private static Map<String, Object> descrever(TabelaTarifaria tabela) {
+        Map<String, Object> resposta = new LinkedHashMap<>();
+        resposta.put("versao", tabela.getVersao());
+        resposta.put("configuracao", tabela.getConfiguracao());
+        return resposta;
+    }
+
+}
@@ -6,6 +6,8 @@ import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -13,13 +15,17 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.generation.carona_spring.model.Usuario;
 import com.generation.carona_spring.model.UsuarioLogin;
+import com.generation.carona_spring.model.UsuarioRefresh;
+import com.generation.carona_spring.model.UsuarioSenha;
 import com.generation.carona_spring.repository.UsuarioRepository;
 import com.generation.carona_spring.service.UsuarioService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -48,12 +54,27 @@ public class UsuarioController {
 	}
 	
 	@PostMapping("/logar")
-	public ResponseEntity<UsuarioLogin> autenticarUsuario(@RequestBody Optional<UsuarioLogin> usuarioLogin){
+	public ResponseEntity<UsuarioLogin> autenticarUsuario(@RequestBody Optional<UsuarioLogin> usuarioLogin,
+			HttpServletRequest request){
 		
-		return usuarioService.autenticarUsuario(usuarioLogin)
+		return usuarioService.autenticarUsuario(usuarioLogin, request.getRemoteAddr())
 				.map(resposta -> ResponseEntity.status(HttpStatus.OK).body(resposta))
 				.orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
 	}
+
+	@PostMapping("/refresh")
+	public ResponseEntity<UsuarioRefresh> renovarToken(@RequestBody UsuarioRefresh usuarioRefresh) {
+
+		return usuarioService.renovarToken(usuarioRefresh)
+				.map(resposta -> ResponseEntity.status(HttpStatus.OK).body(resposta))
+				.orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+	}
+
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	@PostMapping("/logout")
+	public void encerrarSessao(@RequestBody UsuarioRefresh usuarioRefresh) {
+		usuarioService.encerrarSessao(usuarioRefresh);
+	}
     
 
 	@PostMapping("/cadastrar")
@@ -66,12 +87,23 @@ public class UsuarioController {
 	}
 
 	@PutMapping("/atualizar")
-	public ResponseEntity<Usuario> putUsuario(@Valid @RequestBody Usuario usuario) {
+	public ResponseEntity<Usuario> putUsuario(@Valid @RequestBody Usuario usuario,
+			@AuthenticationPrincipal UserDetails usuarioLogado) {
 		
-		return usuarioService.atualizarUsuario(usuario)
+		return usuarioService.atualizarUsuario(usuario, usuarioLogado.getUsername())
 			.map(resposta -> ResponseEntity.status(HttpStatus.OK).body(resposta))
 			.orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
 		
 	}
 
+	@PutMapping("/atualizar/senha")
+	public ResponseEntity<Usuario> putSenha(@Valid @RequestBody UsuarioSenha usuarioSenha,
+			@AuthenticationPrincipal UserDetails usuarioLogado, HttpServletRequest request) {
+
+		return usuarioService.alterarSenha(usuarioLogado.getUsername(), usuarioSenha, request.getRemoteAddr())
+			.map(resposta -> ResponseEntity.status(HttpStatus.OK).body(resposta))
+			.orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+
+	}
+
 }
\ No newline at end of file
@@ -4,7 +4,10 @@ import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,14 +15,20 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.generation.carona_spring.model.Viagem;
+import com.generation.carona_spring.records.ConclusaoViagem;
+import com.generation.carona_spring.records.Cotacao;
+import com.generation.carona_spring.records.SolicitacaoCotacao;
+import com.generation.carona_spring.service.IdempotenciaService;
 import com.generation.carona_spring.service.ViagemService;
 
 import jakarta.validation.Valid;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/viagens")
@@ -29,6 +38,9 @@ public class ViagemController {
     @Autowired
     private ViagemService viagemService;
 
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
     @GetMapping
     public ResponseEntity<List<Viagem>> getAll() {
         return ResponseEntity.ok(viagemService.listarTodas());
@@ -46,16 +58,56 @@ public class ViagemController {
         return ResponseEntity.ok(viagemService.buscarPorDestino(destino));
     }
 
+    @GetMapping("/destino/{destino}/proximas")
+    public ResponseEntity<List<Viagem>> getProximasByDestino(@PathVariable String destino) {
+        return ResponseEntity.ok(viagemService.buscarProximasPorDestino(destino));
+    }
+
     @PostMapping
     public ResponseEntity<Viagem> post(@Valid @RequestBody Viagem viagem) {
         return ResponseEntity.status(HttpStatus.CREATED).body(viagemService.criar(viagem));
     }
 
+    /**
+     * Com o cabeçalho Idempotency-Key, uma nova tentativa (após um timeout do cliente, por exemplo)
+     * recebe a viagem criada pela requisição original, em vez de criar outra.
+     * Idempotent-Replayed indica se a resposta veio de uma requisição anterior.
+     * O corpo é o JSON da viagem guardado pelo IdempotenciaService, o mesmo em todas as respostas.
+     */
+    @PostMapping(headers = "Idempotency-Key")
+    public ResponseEntity<byte[]> postIdempotente(@Valid @RequestBody Viagem viagem,
+                                                  @RequestHeader("Idempotency-Key") String chaveIdempotencia,
+                                                  @AuthenticationPrincipal UserDetails usuario) {
+        IdempotenciaService.Resultado resultado = idempotenciaService.executar(
+                usuario.getUsername(), chaveIdempotencia, viagem, () -> viagemService.criar(viagem));
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotent-Replayed", String.valueOf(resultado.repetido()))
+                .body(resultado.json());
+    }
+
+    @PostMapping("/cotacao")
+    public ResponseEntity<Cotacao> cotar(@Valid @RequestBody SolicitacaoCotacao solicitacao) {
+        return ResponseEntity.ok(viagemService.cotar(solicitacao));
+    }
+
+    @PostMapping("/reativo/cotacao")
+    public Mono<Cotacao> cotarSemBloquear(@Valid @RequestBody SolicitacaoCotacao solicitacao) {
+        return viagemService.cotarSemBloquear(solicitacao);
+    }
+
     @PutMapping
     public ResponseEntity<Viagem> put(@Valid @RequestBody Viagem viagem) {
         return ResponseEntity.ok(viagemService.atualizar(viagem));
     }
 
+    @PutMapping("/{id}/concluir")
+    public ResponseEntity<Viagem> concluir(@PathVariable Long id, @Valid @RequestBody ConclusaoViagem conclusao,
+                                           @AuthenticationPrincipal UserDetails usuario) {
+        return ResponseEntity.ok(viagemService.concluir(id, conclusao, usuario.getUsername()));
+    }
+
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @DeleteMapping("/{id}")
     public void delete(@PathVariable Long id) {
@@ -0,0 +1,44 @@
+package com.generation.carona_spring.model;
+
+import java.lang.reflect.Member;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.AnnotationBasedGenerator;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.IdentifierGenerator;
+
+import com.generation.carona_spring.configuration.AlocadorIds;
+
+/**
+ * Gerador dos ids com @IdEmBlocos: cada id vem do bloco atual do AlocadorIds, recebido
+ * nas propriedades do Hibernate (AlocadorIds.PROPRIEDADE). Não usa conexões da sessão.
+ *
+ * Com o Spring, o Hibernate cria o gerador pelo contêiner de beans (construtor sem
+ * argumentos) e depois chama initialize; sem ele, faz o mesmo diretamente.
+ */
+public class GeradorIdEmBlocos implements IdentifierGenerator, AnnotationBasedGenerator<IdEmBlocos> {
+
+	private String nome;
+	private AlocadorIds alocador;
+
+	@Override
+	public void initialize(IdEmBlocos configuracao, Member membro, GeneratorCreationContext contexto) {
+		Object alocador = contexto.getServiceRegistry().requireService(ConfigurationService.class)
+				.getSettings().get(AlocadorIds.PROPRIEDADE);
+
+		if (!(alocador instanceof AlocadorIds alocadorIds)) {
+			throw new IllegalStateException("Propriedade " + AlocadorIds.PROPRIEDADE
+					+ " do Hibernate sem o AlocadorIds, necessário para os ids de " + configuracao.value());
+		}
+
+		this.nome = configuracao.value();
+		this.alocador = alocadorIds;
+	}
+
+	@Override
+	public Object generate(SharedSessionContractImplementor sessao, Object entidade) {
+		return alocador.proximo(nome);
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.generation.carona_spring.model;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Id reservado em blocos na tabela tb_sequencias (GeradorIdEmBlocos), em vez de AUTO_INCREMENT:
+ * o id é conhecido antes do insert, e os inserts podem ser agrupados em lotes JDBC.
+ */
+@IdGeneratorType(GeradorIdEmBlocos.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD, ElementType.METHOD })
+public @interface IdEmBlocos {
+
+	/** Nome da sequência em tb_sequencias (o nome da tabela da entidade). */
+	String value();
+
+}
@@ -0,0 +1,78 @@
+package com.generation.carona_spring.model;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.persistence.Embeddable;
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Ponto de embarque de um passageiro em uma viagem com várias paradas.
+ *
+ * Apenas o endereço é informado; coordenadas, distância a bordo e valor são calculados
+ * pelo RotaService, que também define a ordem das paradas na viagem.
+ */
+@Embeddable
+public class Parada {
+
+	@NotBlank(message = "O endereço da parada é obrigatório")
+	private String endereco;
+
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	private Double latitude;
+
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	private Double longitude;
+
+	// Distância (km) percorrida pelo passageiro, da parada até o destino
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	private Double distancia;
+
+	// Parte do valor da viagem, proporcional à distância a bordo
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	private BigDecimal valor;
+
+	public Parada() { }
+
+	public String getEndereco() {
+		return endereco;
+	}
+
+	public void setEndereco(String endereco) {
+		this.endereco = endereco;
+	}
+
+	public Double getLatitude() {
+		return latitude;
+	}
+
+	public void setLatitude(Double latitude) {
+		this.latitude = latitude;
+	}
+
+	public Double getLongitude() {
+		return longitude;
+	}
+
+	public void setLongitude(Double longitude) {
+		this.longitude = longitude;
+	}
+
+	public Double getDistancia() {
+		return distancia;
+	}
+
+	public void setDistancia(Double distancia) {
+		this.distancia = distancia;
+	}
+
+	public BigDecimal getValor() {
+		return valor;
+	}
+
+	public void setValor(BigDecimal valor) {
+		this.valor = valor;
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.generation.carona_spring.model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Execução do recálculo em lote das viagens futuras após uma mudança de tarifas.
+ *
+ * Funciona como checkpoint: ultimoId é gravado na mesma transação de cada lote,
+ * então uma execução interrompida continua a partir do último lote confirmado.
+ */
+@Entity
+@Table(name = "tb_recalculos_tarifa")
+public class RecalculoTarifa {
+
+	public enum Status { EM_ANDAMENTO, CONCLUIDO, FALHOU }
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false, length = 32)
+	private String versaoTarifa;
+
+	// Início da execução: viagens com partida anterior não entram. Cada lote também ignora as que já partiram
+	@Column(nullable = false)
+	private LocalDateTime dataCorte;
+
+	@Column(nullable = false)
+	private long ultimoId;
+
+	@Column(nullable = false)
+	private long processadas;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 16)
+	private Status status;
+
+	@Column(nullable = false)
+	private Instant iniciadoEm;
+
+	private Instant atualizadoEm;
+
+	private String erro;
+
+	public RecalculoTarifa() { }
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getVersaoTarifa() {
+		return versaoTarifa;
+	}
+
+	public void setVersaoTarifa(String versaoTarifa) {
+		this.versaoTarifa = versaoTarifa;
+	}
+
+	public LocalDateTime getDataCorte() {
+		return dataCorte;
+	}
+
+	public void setDataCorte(LocalDateTime dataCorte) {
+		this.dataCorte = dataCorte;
+	}
+
+	public long getUltimoId() {
+		return ultimoId;
+	}
+
+	public void setUltimoId(long ultimoId) {
+		this.ultimoId = ultimoId;
+	}
+
+	public long getProcessadas() {
+		return processadas;
+	}
+
+	public void setProcessadas(long processadas) {
+		this.processadas = processadas;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	public Instant getIniciadoEm() {
+		return iniciadoEm;
+	}
+
+	public void setIniciadoEm(Instant iniciadoEm) {
+		this.iniciadoEm = iniciadoEm;
+	}
+
+	public Instant getAtualizadoEm() {
+		return atualizadoEm;
+	}
+
+	public void setAtualizadoEm(Instant atualizadoEm) {
+		this.atualizadoEm = atualizadoEm;
+	}
+
+	public String getErro() {
+		return erro;
+	}
+
+	public void setErro(String erro) {
+		this.erro = erro;
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.generation.carona_spring.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * Refresh token opaco. Apenas o hash SHA-256 do token é gravado;
+ * o valor original é entregue ao cliente uma única vez.
+ * 
+ * Tokens renovados a partir do mesmo login compartilham a mesma família,
+ * permitindo revogar toda a cadeia se um token já usado for reapresentado.
+ */
+@Entity
+@Table(name = "tb_refresh_tokens", indexes = {
+		@Index(name = "uk_refresh_tokens_hash", columnList = "tokenHash", unique = true),
+		@Index(name = "idx_refresh_tokens_familia", columnList = "familia")
+})
+public class RefreshToken {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false, length = 64)
+	private String tokenHash;
+
+	@Column(nullable = false, length = 36)
+	private String familia;
+
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	private Usuario usuario;
+
+	@Column(nullable = false)
+	private Instant expiraEm;
+
+	@Column(nullable = false)
+	private boolean revogado;
+
+	public RefreshToken() { }
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getTokenHash() {
+		return tokenHash;
+	}
+
+	public void setTokenHash(String tokenHash) {
+		this.tokenHash = tokenHash;
+	}
+
+	public String getFamilia() {
+		return familia;
+	}
+
+	public void setFamilia(String familia) {
+		this.familia = familia;
+	}
+
+	public Usuario getUsuario() {
+		return usuario;
+	}
+
+	public void setUsuario(Usuario usuario) {
+		this.usuario = usuario;
+	}
+
+	public Instant getExpiraEm() {
+		return expiraEm;
+	}
+
+	public void setExpiraEm(Instant expiraEm) {
+		this.expiraEm = expiraEm;
+	}
+
+	public boolean isRevogado() {
+		return revogado;
+	}
+
+	public void setRevogado(boolean revogado) {
+		this.revogado = revogado;
+	}
+
+}
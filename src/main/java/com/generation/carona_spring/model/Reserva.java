@@ -0,0 +1,96 @@
+package com.generation.carona_spring.model;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * Lugares reservados por um passageiro em uma viagem.
+ *
+ * Cada usuário tem no máximo uma reserva por viagem (restrição única no banco).
+ * Os lugares são descontados de Viagem.vagasDisponiveis na mesma transação
+ * em que a reserva é gravada.
+ */
+@Entity
+@Table(name = "tb_reservas")
+public class Reserva {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@JsonIgnore
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	private Viagem viagem;
+
+	@JsonIgnore
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	private Usuario usuario;
+
+	@Column(nullable = false)
+	private int lugares;
+
+	@Column(nullable = false)
+	private Instant criadaEm;
+
+	public Reserva() { }
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Viagem getViagem() {
+		return viagem;
+	}
+
+	public void setViagem(Viagem viagem) {
+		this.viagem = viagem;
+	}
+
+	public Usuario getUsuario() {
+		return usuario;
+	}
+
+	public void setUsuario(Usuario usuario) {
+		this.usuario = usuario;
+	}
+
+	// Apenas os ids no JSON: não inicializa as associações
+	public Long getViagemId() {
+		return viagem == null ? null : viagem.getId();
+	}
+
+	public Long getUsuarioId() {
+		return usuario == null ? null : usuario.getId();
+	}
+
+	public int getLugares() {
+		return lugares;
+	}
+
+	public void setLugares(int lugares) {
+		this.lugares = lugares;
+	}
+
+	public Instant getCriadaEm() {
+		return criadaEm;
+	}
+
+	public void setCriadaEm(Instant criadaEm) {
+		this.criadaEm = criadaEm;
+	}
+
+}
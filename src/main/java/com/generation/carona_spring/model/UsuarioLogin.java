@@ -9,6 +9,7 @@ public class UsuarioLogin {
 	private String foto;
 	private String celular;
 	private String token;
+	private String refreshToken;
 
 	public Long getId() {
 		return id;
@@ -66,4 +67,12 @@ public class UsuarioLogin {
 		this.token = token;
 	}
 
+	public String getRefreshToken() {
+		return refreshToken;
+	}
+
+	public void setRefreshToken(String refreshToken) {
+		this.refreshToken = refreshToken;
+	}
+
 }
\ No newline at end of file
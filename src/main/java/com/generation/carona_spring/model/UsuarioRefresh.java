@@ -0,0 +1,24 @@
+package com.generation.carona_spring.model;
+
+public class UsuarioRefresh {
+
+	private String refreshToken;
+	private String token;
+
+	public String getRefreshToken() {
+		return refreshToken;
+	}
+
+	public void setRefreshToken(String refreshToken) {
+		this.refreshToken = refreshToken;
+	}
+
+	public String getToken() {
+		return token;
+	}
+
+	public void setToken(String token) {
+		this.token = token;
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.generation.carona_spring.model;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Troca de senha do usuário autenticado (o usuário vem do token, não do corpo).
+ */
+public class UsuarioSenha {
+
+	@NotBlank(message = "O Atributo Senha Atual é Obrigatório!")
+	private String senhaAtual;
+
+	@NotBlank(message = "O Atributo Nova Senha é Obrigatório!")
+	@Size(min = 8, message = "A Senha deve ter no mínimo 8 caracteres")
+	private String novaSenha;
+
+	public String getSenhaAtual() {
+		return senhaAtual;
+	}
+
+	public void setSenhaAtual(String senhaAtual) {
+		this.senhaAtual = senhaAtual;
+	}
+
+	public String getNovaSenha() {
+		return novaSenha;
+	}
+
+	public void setNovaSenha(String novaSenha) {
+		this.novaSenha = novaSenha;
+	}
+
+}
@@ -2,25 +2,36 @@ package com.generation.carona_spring.model;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.annotations.BatchSize;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OrderColumn;
 import jakarta.persistence.Table;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 
 @Entity
 @Table(name = "tb_viagens")
 public class Viagem {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@IdEmBlocos("tb_viagens")
 	private Long id;
 
 	@NotBlank(message = "O local de partida é obrigatório")
@@ -40,6 +51,11 @@ public class Viagem {
 	private Double velocidadeMedia;
 
 	private Double tempoEstimado;
+
+	// Tempo real (minutos), informado na conclusão da viagem; não é alterado pelo PUT
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	@Column(updatable = false)
+	private Double tempoReal;
 	
 	private Double latitudePartida;
 	
@@ -49,6 +65,27 @@ public class Viagem {
 	
 	private Double longitudeDestino;
 
+	// Lugares oferecidos; alterado no PUT por ViagemRepository.alterarVagas, que preserva as reservas
+	@NotNull(message = "O número de vagas é obrigatório")
+	@Positive(message = "O número de vagas deve ser maior que zero")
+	@Column(updatable = false)
+	private Integer vagas;
+
+	// Alterado apenas pelas reservas, com updates condicionais (ViagemRepository.ocuparVagas/liberarVagas)
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	@Column(updatable = false)
+	private Integer vagasDisponiveis;
+
+	// Embarques dos passageiros entre a partida e o destino, na ordem em que o motorista passa.
+	// Carregadas em lotes na listagem, em vez de uma consulta por viagem
+	@Valid
+	@Size(max = 10, message = "A viagem pode ter no máximo 10 paradas")
+	@ElementCollection
+	@CollectionTable(name = "tb_viagens_paradas", joinColumns = @JoinColumn(name = "viagem_id"))
+	@OrderColumn(name = "ordem")
+	@BatchSize(size = 50)
+	private List<Parada> paradas = new ArrayList<>();
+
 	@ManyToOne
 	@JsonIgnoreProperties("viagem")
 	private Veiculo veiculo;
@@ -123,6 +160,14 @@ public class Viagem {
 		this.tempoEstimado = tempoEstimado;
 	}
 
+	public Double getTempoReal() {
+		return tempoReal;
+	}
+
+	public void setTempoReal(Double tempoReal) {
+		this.tempoReal = tempoReal;
+	}
+
 	public Double getLatitudePartida() {
 		return latitudePartida;
 	}
@@ -155,6 +200,22 @@ public class Viagem {
 		this.longitudeDestino = longitudeDestino;
 	}
 
+	public Integer getVagas() {
+		return vagas;
+	}
+
+	public void setVagas(Integer vagas) {
+		this.vagas = vagas;
+	}
+
+	public Integer getVagasDisponiveis() {
+		return vagasDisponiveis;
+	}
+
+	public void setVagasDisponiveis(Integer vagasDisponiveis) {
+		this.vagasDisponiveis = vagasDisponiveis;
+	}
+
 	public Veiculo getVeiculo() {
 		return veiculo;
 	}
@@ -171,4 +232,12 @@ public class Viagem {
 		this.usuario = usuario;
 	}
 
+	public List<Parada> getParadas() {
+		return paradas;
+	}
+
+	public void setParadas(List<Parada> paradas) {
+		this.paradas = paradas;
+	}
+
 }
\ No newline at end of file
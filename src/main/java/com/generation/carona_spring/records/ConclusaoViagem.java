@@ -0,0 +1,13 @@
+package com.generation.carona_spring.records;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Dados da conclusão de uma viagem: o tempo real gasto, em minutos.
+ * Alimenta o histórico de velocidades usado nas próximas estimativas.
+ */
+public record ConclusaoViagem(
+        @NotNull(message = "O tempo real é obrigatório")
+        @Positive(message = "O tempo real deve ser maior que zero")
+        Double tempoReal) {}
@@ -0,0 +1,18 @@
+package com.generation.carona_spring.records;
+
+import java.util.List;
+
+/**
+ * Conteúdo do arquivo de tarifas (tarifas.json).
+ * 
+ * Os valores fixos compõem o preço da viagem e a velocidade padrão vale
+ * para os horários não cobertos por nenhuma faixa. As faixas são aplicadas
+ * na ordem do arquivo: uma faixa posterior sobrescreve as anteriores.
+ */
+public record ConfiguracaoTarifaria(
+        double tarifaBase,
+        double valorPorKm,
+        double valorPorMinuto,
+        double valorSeguro,
+        double velocidadePadrao,
+        List<FaixaTarifaria> faixas) {}
@@ -0,0 +1,9 @@
+package com.generation.carona_spring.records;
+
+import java.util.List;
+
+/**
+ * Resultado da cotação: a distância do trajeto e o preço para cada data de partida.
+ * Nada é gravado no banco.
+ */
+public record Cotacao(String partida, String destino, double distancia, List<PrecoViagem> precos) {}
@@ -0,0 +1,20 @@
+package com.generation.carona_spring.records;
+
+import java.time.DayOfWeek;
+import java.util.List;
+
+/**
+ * Faixa de horário da tabela de tarifas (tarifas.json).
+ * 
+ * Define a velocidade média e os acréscimos aplicados nos dias e no intervalo
+ * [inicio, fim) informados, no formato "HH:mm" ("24:00" indica o fim do dia).
+ * O acréscimo (R$) e o multiplicador são opcionais.
+ */
+public record FaixaTarifaria(
+        String nome,
+        List<DayOfWeek> dias,
+        String inicio,
+        String fim,
+        double velocidade,
+        Double acrescimo,
+        Double multiplicador) {}
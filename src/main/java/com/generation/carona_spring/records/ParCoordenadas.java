@@ -0,0 +1,6 @@
+package com.generation.carona_spring.records;
+
+/**
+ * Origem e destino de um trecho cuja distância será calculada.
+ */
+public record ParCoordenadas(Coordenadas origem, Coordenadas destino) {}
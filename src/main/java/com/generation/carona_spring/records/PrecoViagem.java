@@ -0,0 +1,15 @@
+package com.generation.carona_spring.records;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * Velocidade média, tempo estimado (minutos) e valor de um trajeto em uma data de partida.
+ */
+public record PrecoViagem(
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime dataPartida,
+        double velocidadeMedia,
+        double tempoEstimado,
+        BigDecimal valor) {}
@@ -0,0 +1,27 @@
+package com.generation.carona_spring.records;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Pedido de cotação: um trajeto e uma ou mais datas de partida
+ * (no máximo 96, um dia inteiro em intervalos de 15 minutos).
+ */
+public record SolicitacaoCotacao(
+        @NotBlank(message = "O local de partida é obrigatório")
+        String partida,
+
+        @NotBlank(message = "O destino é obrigatório")
+        String destino,
+
+        @NotEmpty(message = "Informe ao menos uma data de partida")
+        @Size(max = 96, message = "Informe no máximo 96 datas de partida")
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        List<@NotNull LocalDateTime> datasPartida) {}
@@ -0,0 +1,12 @@
+package com.generation.carona_spring.records;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Quantidade de lugares a reservar em uma viagem.
+ */
+public record SolicitacaoReserva(
+        @NotNull(message = "O número de lugares é obrigatório")
+        @Positive(message = "O número de lugares deve ser maior que zero")
+        Integer lugares) {}
@@ -0,0 +1,7 @@
+package com.generation.carona_spring.records;
+
+/**
+ * Coordenadas da partida e do destino e a distância (km) entre elas.
+ * Não depende do horário: o mesmo trajeto pode ser precificado para várias datas.
+ */
+public record Trajeto(Coordenadas partida, Coordenadas destino, double distanciaKm) {}
@@ -0,0 +1,13 @@
+package com.generation.carona_spring.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.generation.carona_spring.model.RecalculoTarifa;
+
+public interface RecalculoTarifaRepository extends JpaRepository<RecalculoTarifa, Long> {
+
+	Optional<RecalculoTarifa> findFirstByOrderByIdDesc();
+
+}
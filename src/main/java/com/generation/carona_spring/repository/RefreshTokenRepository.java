@@ -0,0 +1,55 @@
+package com.generation.carona_spring.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.generation.carona_spring.model.RefreshToken;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+	@Query("select r from RefreshToken r join fetch r.usuario where r.tokenHash = :tokenHash")
+	Optional<RefreshToken> findByTokenHash(@Param("tokenHash") String tokenHash);
+
+	/**
+	 * Revoga o token apenas se ele ainda estiver ativo.
+	 * Retorna 0 quando outra requisição já o usou (renovação concorrente ou reuso).
+	 */
+	@Modifying
+	@Query("update RefreshToken r set r.revogado = true where r.id = :id and r.revogado = false")
+	int revogar(@Param("id") Long id);
+
+	@Modifying
+	@Query("update RefreshToken r set r.revogado = true where r.familia = :familia and r.revogado = false")
+	int revogarFamilia(@Param("familia") String familia);
+
+	@Modifying
+	@Query("update RefreshToken r set r.revogado = true where r.usuario.id = :usuarioId and r.revogado = false")
+	int revogarPorUsuario(@Param("usuarioId") Long usuarioId);
+
+	@Transactional
+	@Modifying
+	@Query("delete from RefreshToken r where r.expiraEm < :agora")
+	int apagarExpirados(@Param("agora") Instant agora);
+
+	/**
+	 * Famílias sem nenhum token ativo (logout, troca de senha ou reuso detectado).
+	 */
+	@Query("select r.familia from RefreshToken r group by r.familia"
+			+ " having sum(case when r.revogado = false then 1 else 0 end) = 0")
+	List<String> findFamiliasEncerradas(Pageable pagina);
+
+	@Transactional
+	@Modifying
+	@Query("delete from RefreshToken r where r.familia in :familias")
+	int apagarFamilias(@Param("familias") List<String> familias);
+
+}
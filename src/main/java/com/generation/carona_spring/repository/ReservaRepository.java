@@ -0,0 +1,30 @@
+package com.generation.carona_spring.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.generation.carona_spring.model.Reserva;
+
+public interface ReservaRepository extends JpaRepository<Reserva, Long> {
+
+	// Viagem_Id em vez de ViagemId: Reserva também tem getViagemId() (usado no JSON)
+
+	List<Reserva> findAllByViagem_IdOrderById(Long viagemId);
+
+	Optional<Reserva> findByViagem_IdAndUsuario_Id(Long viagemId, Long usuarioId);
+
+	boolean existsByViagem_IdAndUsuario_Id(Long viagemId, Long usuarioId);
+
+	/**
+	 * Retorna 0 quando outra requisição já cancelou a reserva.
+	 */
+	@Modifying
+	@Query("delete from Reserva r where r.id = :id")
+	int excluir(@Param("id") Long id);
+
+}
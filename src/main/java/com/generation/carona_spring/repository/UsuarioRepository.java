@@ -2,12 +2,18 @@
 
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.generation.carona_spring.model.Usuario;
 
+import jakarta.persistence.QueryHint;
+
 public interface UsuarioRepository extends JpaRepository<Usuario, Long>{
 
+	// Executada a cada requisição autenticada (JwtAuthFilter): resultado no cache de consultas
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
 	public Optional<Usuario> findByUsuario(String usuario);
 	
 }
\ No newline at end of file
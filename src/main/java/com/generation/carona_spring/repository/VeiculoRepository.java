@@ -2,12 +2,20 @@
 
 import java.util.List;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.generation.carona_spring.model.Veiculo;
 
+import jakarta.persistence.QueryHint;
+
 public interface VeiculoRepository extends JpaRepository<Veiculo, Long> {
 
 	public List<Veiculo> findAllByModeloContainingIgnoreCase(String modelo);
 
+	// Verificada a cada criação/atualização de viagem: resultado no cache de consultas
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+	boolean existsById(Long id);
+
 }
@@ -1,8 +1,12 @@
 ﻿package com.generation.carona_spring.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.generation.carona_spring.model.Viagem;
 
@@ -10,4 +14,47 @@ public interface ViagemRepository extends JpaRepository<Viagem, Long> {
 
 	List<Viagem> findAllByDestinoContainingIgnoreCase(String destino);
 
+	/**
+	 * Viagens para o destino exato a partir da data informada, em ordem de partida.
+	 * Usa o índice idx_viagens_destino_data_partida (a busca por trecho do destino não usa).
+	 */
+	List<Viagem> findAllByDestinoAndDataPartidaGreaterThanEqualOrderByDataPartida(String destino,
+			LocalDateTime dataPartida);
+
+	/**
+	 * Grava o tempo real apenas se a viagem ainda não foi concluída.
+	 * Retorna 0 quando ela já tinha sido concluída (evita contar a viagem duas vezes no histórico).
+	 */
+	@Modifying
+	@Query("update Viagem v set v.tempoReal = :tempoReal where v.id = :id and v.tempoReal is null")
+	int concluir(@Param("id") Long id, @Param("tempoReal") Double tempoReal);
+
+	/**
+	 * Desconta os lugares apenas se ainda houver vagas suficientes, em um único comando:
+	 * reservas concorrentes nunca ultrapassam a capacidade e não há bloqueio além do próprio update.
+	 * Retorna 0 quando faltam vagas (ou a viagem não existe).
+	 */
+	@Modifying
+	@Query("update Viagem v set v.vagasDisponiveis = v.vagasDisponiveis - :lugares "
+			+ "where v.id = :id and v.vagasDisponiveis >= :lugares")
+	int ocuparVagas(@Param("id") Long id, @Param("lugares") int lugares);
+
+	@Modifying
+	@Query("update Viagem v set v.vagasDisponiveis = v.vagasDisponiveis + :lugares "
+			+ "where v.id = :id and v.vagasDisponiveis + :lugares <= v.vagas")
+	int liberarVagas(@Param("id") Long id, @Param("lugares") int lugares);
+
+	/**
+	 * Altera a capacidade mantendo os lugares já reservados.
+	 * Retorna 0 se a nova capacidade for menor que o total reservado.
+	 * Viagens anteriores às reservas (sem vagas) passam a ter todas as vagas disponíveis.
+	 */
+	@Modifying
+	@Query("update Viagem v set v.vagasDisponiveis = coalesce(v.vagasDisponiveis + (:vagas - v.vagas), :vagas), "
+			+ "v.vagas = :vagas where v.id = :id and coalesce(v.vagasDisponiveis + (:vagas - v.vagas), :vagas) >= 0")
+	int alterarVagas(@Param("id") Long id, @Param("vagas") int vagas);
+
+	@Query("select v.vagasDisponiveis from Viagem v where v.id = :id")
+	Integer consultarVagasDisponiveis(@Param("id") Long id);
+
 }
\ No newline at end of file
@@ -0,0 +1,187 @@
+package com.generation.carona_spring.security;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Controle de admissão por classe de rota, antes da autenticação e dos controllers.
+ *
+ * As rotas caras têm um limite de requisições simultâneas cada, para não ocupar todas as
+ * threads do Tomcat e deixar as consultas baratas (GET /viagens/{id}) sem atendimento:
+ *
+ * - rota: criação e atualização de viagens e cotação, que chamam a OpenCage e a OSRM;
+ * - login: login, cadastro e atualização do usuário e da senha, que executam o BCrypt;
+ * - geral: as demais (sem limite por padrão).
+ *
+ * Acima do limite a requisição espera em uma fila limitada; com a fila cheia ou a espera
+ * esgotada, recebe 503 com Retry-After na hora. Propriedades admissao.{classe}.*:
+ * modo (fixo ou adaptativo), limite (0 = sem limite), limite-minimo, limite-maximo,
+ * latencia-alvo-ms, fila, espera-ms e retry-after-segundos.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ControleAdmissaoFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ControleAdmissaoFilter.class);
+
+    enum ClasseRota { ROTA, LOGIN, GERAL }
+
+    private final Map<ClasseRota, LimiteConcorrencia> limites = new EnumMap<>(ClasseRota.class);
+    private final Map<ClasseRota, Long> retryAfterSegundos = new EnumMap<>(ClasseRota.class);
+    private final Map<ClasseRota, Counter> recusasFilaCheia = new EnumMap<>(ClasseRota.class);
+    private final Map<ClasseRota, Counter> recusasEsperaEsgotada = new EnumMap<>(ClasseRota.class);
+
+    public ControleAdmissaoFilter(Environment ambiente, MeterRegistry meterRegistry) {
+        configurar(ClasseRota.ROTA, "adaptativo", 40, 5000, ambiente, meterRegistry);
+        configurar(ClasseRota.LOGIN, "fixo", 20, 2000, ambiente, meterRegistry);
+        configurar(ClasseRota.GERAL, "fixo", 0, 1000, ambiente, meterRegistry);
+
+        // As requisições na fila também ocupam uma thread do Tomcat enquanto esperam
+        int ocupacao = limites.values().stream().mapToInt(LimiteConcorrencia::ocupacaoMaxima).sum();
+        int threadsTomcat = ambiente.getProperty("server.tomcat.threads.max", Integer.class, 200);
+
+        if (!limites.containsKey(ClasseRota.GERAL) && ocupacao >= threadsTomcat) {
+            logger.warn("Limites e filas do controle de admissão ({}) ocupam todas as threads do Tomcat ({}); "
+                    + "as demais rotas podem ficar sem atendimento", ocupacao, threadsTomcat);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        ClasseRota classe = classificar(request);
+        LimiteConcorrencia limite = limites.get(classe);
+
+        if (limite == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        LimiteConcorrencia.Recusa recusa;
+
+        try {
+            recusa = limite.adquirir();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            recusa = LimiteConcorrencia.Recusa.ESPERA_ESGOTADA;
+        }
+
+        if (recusa != null) {
+            recusar(classe, recusa, response);
+            return;
+        }
+
+        long inicio = System.nanoTime();
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limite.liberar(System.nanoTime() - inicio);
+        }
+    }
+
+    static ClasseRota classificar(HttpServletRequest request) {
+        String caminho = request.getServletPath();
+        String metodo = request.getMethod();
+
+        if (HttpMethod.POST.matches(metodo)) {
+            return switch (caminho) {
+                case "/viagens", "/viagens/cotacao" -> ClasseRota.ROTA;
+                case "/usuarios/logar", "/usuarios/cadastrar" -> ClasseRota.LOGIN;
+                default -> ClasseRota.GERAL;
+            };
+        }
+
+        if (HttpMethod.PUT.matches(metodo)) {
+            return switch (caminho) {
+                case "/viagens" -> ClasseRota.ROTA;
+                case "/usuarios/atualizar", "/usuarios/atualizar/senha" -> ClasseRota.LOGIN;
+                default -> ClasseRota.GERAL;
+            };
+        }
+
+        return ClasseRota.GERAL;
+    }
+
+    private void recusar(ClasseRota classe, LimiteConcorrencia.Recusa recusa,
+                         HttpServletResponse response) throws IOException {
+
+        (recusa == LimiteConcorrencia.Recusa.FILA_CHEIA ? recusasFilaCheia : recusasEsperaEsgotada)
+                .get(classe).increment();
+        logger.debug("Requisição recusada pelo controle de admissão: classe={}, motivo={}", classe, recusa);
+
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSegundos.get(classe)));
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Servidor sobrecarregado. Tente novamente mais tarde.");
+    }
+
+    private void configurar(ClasseRota classe, String modoPadrao, int limitePadrao, long esperaPadraoMs,
+                            Environment ambiente, MeterRegistry meterRegistry) {
+
+        String nome = classe.name().toLowerCase(Locale.ROOT);
+        String prefixo = "admissao." + nome + ".";
+        int limiteInicial = ambiente.getProperty(prefixo + "limite", Integer.class, limitePadrao);
+
+        retryAfterSegundos.put(classe, ambiente.getProperty(prefixo + "retry-after-segundos", Long.class, 1L));
+        recusasFilaCheia.put(classe, contadorRecusas(meterRegistry, nome, "fila_cheia"));
+        recusasEsperaEsgotada.put(classe, contadorRecusas(meterRegistry, nome, "espera_esgotada"));
+
+        if (limiteInicial <= 0) {
+            return;
+        }
+
+        boolean adaptativo = "adaptativo".equals(ambiente.getProperty(prefixo + "modo", modoPadrao));
+        LimiteConcorrencia limite = new LimiteConcorrencia(adaptativo, limiteInicial,
+                ambiente.getProperty(prefixo + "limite-minimo", Integer.class, Math.max(1, limiteInicial / 8)),
+                ambiente.getProperty(prefixo + "limite-maximo", Integer.class, limiteInicial * 2),
+                ambiente.getProperty(prefixo + "latencia-alvo-ms", Long.class, 10000L),
+                ambiente.getProperty(prefixo + "fila", Integer.class, limiteInicial),
+                ambiente.getProperty(prefixo + "espera-ms", Long.class, esperaPadraoMs));
+        limites.put(classe, limite);
+
+        Gauge.builder("admissao.limite", limite, LimiteConcorrencia::limite)
+                .description("Requisições simultâneas permitidas")
+                .tag("classe", nome)
+                .register(meterRegistry);
+        Gauge.builder("admissao.em_uso", limite, LimiteConcorrencia::emUso)
+                .description("Requisições em execução")
+                .tag("classe", nome)
+                .register(meterRegistry);
+        Gauge.builder("admissao.fila", limite, LimiteConcorrencia::naFila)
+                .description("Requisições esperando vaga")
+                .tag("classe", nome)
+                .register(meterRegistry);
+    }
+
+    private static Counter contadorRecusas(MeterRegistry meterRegistry, String classe, String motivo) {
+        return Counter.builder("admissao.recusas")
+                .description("Requisições recusadas com 503 pelo controle de admissão")
+                .tag("classe", classe)
+                .tag("motivo", motivo)
+                .register(meterRegistry);
+    }
+
+}
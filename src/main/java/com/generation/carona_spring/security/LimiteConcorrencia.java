@@ -0,0 +1,151 @@
+package com.generation.carona_spring.security;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limite de requisições simultâneas de uma classe de rotas, com fila limitada.
+ *
+ * Até o limite, a requisição entra na hora. Acima dele, espera na fila por até
+ * esperaMaximaMs; com a fila cheia ou o tempo esgotado, é recusada.
+ *
+ * No modo adaptativo o limite segue a latência (AIMD): uma requisição mais lenta que a
+ * latência-alvo reduz o limite em 10%, até o mínimo; as demais o aumentam aos poucos,
+ * até o máximo, enquanto pelo menos metade dele estiver em uso. Só reduzem o limite as
+ * requisições que começaram depois da última redução: as que já estavam em andamento
+ * refletem o limite anterior, e uma rajada de respostas lentas causa uma única redução
+ * por janela de latência, e não uma por requisição. No modo fixo, o limite é sempre o
+ * inicial.
+ */
+class LimiteConcorrencia {
+
+    private static final double FATOR_REDUCAO = 0.9;
+
+    enum Recusa { FILA_CHEIA, ESPERA_ESGOTADA }
+
+    private final boolean adaptativo;
+    private final int minimo;
+    private final int maximo;
+    private final long latenciaAlvoNs;
+    private final int capacidadeFila;
+    private final long esperaMaximaNs;
+
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition vagaLiberada = trava.newCondition();
+
+    // Protegidos pela trava; voláteis para a leitura das métricas
+    private volatile double limite;
+    private volatile int emUso;
+    private volatile int naFila;
+    private long ultimaReducaoNs = System.nanoTime();
+
+    LimiteConcorrencia(boolean adaptativo, int limiteInicial, int minimo, int maximo,
+                       long latenciaAlvoMs, int capacidadeFila, long esperaMaximaMs) {
+        this.adaptativo = adaptativo;
+        this.minimo = Math.max(1, minimo);
+        this.maximo = Math.max(this.minimo, maximo);
+        this.latenciaAlvoNs = TimeUnit.MILLISECONDS.toNanos(latenciaAlvoMs);
+        this.capacidadeFila = capacidadeFila;
+        this.esperaMaximaNs = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+        this.limite = adaptativo ? Math.clamp(limiteInicial, this.minimo, this.maximo) : limiteInicial;
+    }
+
+    /**
+     * Reserva uma vaga, esperando na fila se preciso.
+     *
+     * @return null se a vaga foi obtida, ou o motivo da recusa
+     */
+    Recusa adquirir() throws InterruptedException {
+        trava.lock();
+        try {
+            if (emUso < (int) limite) {
+                emUso++;
+                return null;
+            }
+
+            if (naFila >= capacidadeFila) {
+                return Recusa.FILA_CHEIA;
+            }
+
+            naFila++;
+            try {
+                long restanteNs = esperaMaximaNs;
+
+                while (emUso >= (int) limite) {
+                    if (restanteNs <= 0) {
+                        return Recusa.ESPERA_ESGOTADA;
+                    }
+
+                    try {
+                        restanteNs = vagaLiberada.awaitNanos(restanteNs);
+                    } catch (InterruptedException e) {
+                        // Um sinal recebido junto com a interrupção passa para a próxima da fila,
+                        // para que a vaga liberada não fique sem ninguém esperando por ela
+                        vagaLiberada.signal();
+                        throw e;
+                    }
+                }
+
+                emUso++;
+                return null;
+            } finally {
+                naFila--;
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Libera a vaga e, no modo adaptativo, ajusta o limite pela duração da requisição.
+     */
+    void liberar(long duracaoNs) {
+        trava.lock();
+        try {
+            int limiteAnterior = (int) limite;
+            emUso--;
+
+            if (adaptativo) {
+                if (duracaoNs > latenciaAlvoNs) {
+                    long agora = System.nanoTime();
+
+                    if (agora - duracaoNs - ultimaReducaoNs >= 0) {
+                        limite = Math.max(minimo, limite * FATOR_REDUCAO);
+                        ultimaReducaoNs = agora;
+                    }
+                } else if (emUso * 2 >= limite) {
+                    limite = Math.min(maximo, limite + 1.0 / limite);
+                }
+            }
+
+            if ((int) limite > limiteAnterior) {
+                vagaLiberada.signalAll();
+            } else if (emUso < (int) limite) {
+                vagaLiberada.signal();
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Threads que a classe pode ocupar ao mesmo tempo: em execução e esperando na fila.
+     */
+    int ocupacaoMaxima() {
+        return (adaptativo ? maximo : (int) limite) + capacidadeFila;
+    }
+
+    int limite() {
+        return (int) limite;
+    }
+
+    int emUso() {
+        return emUso;
+    }
+
+    int naFila() {
+        return naFila;
+    }
+
+}
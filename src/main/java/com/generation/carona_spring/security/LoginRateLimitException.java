@@ -0,0 +1,29 @@
+package com.generation.carona_spring.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Resposta 429 (Too Many Requests) com o cabeçalho Retry-After,
+ * lançada pelo LoginRateLimiter.
+ */
+public class LoginRateLimitException extends ResponseStatusException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSegundos;
+
+    public LoginRateLimitException(long retryAfterSegundos) {
+        super(HttpStatus.TOO_MANY_REQUESTS, "Muitas tentativas de login. Tente novamente mais tarde.");
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSegundos));
+        return headers;
+    }
+
+}
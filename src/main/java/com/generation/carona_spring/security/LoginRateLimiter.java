@@ -0,0 +1,235 @@
+package com.generation.carona_spring.security;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Limita as tentativas de login por usuário (e-mail) e por IP.
+ *
+ * Cada chave tem uma janela deslizante dividida em baldes de contadores
+ * atômicos, sem locks. As janelas ficam em caches Caffeine limitados a
+ * max-entradas chaves e que descartam a janela sem acesso há mais que a sua
+ * duração, sem varrer o mapa: com muitos usuários ou IPs diferentes (credential
+ * stuffing), a memória e o custo de cada verificação não crescem. Assim, a
+ * verificação custa poucas operações atômicas e é feita antes de qualquer
+ * BCrypt ou consulta ao banco de dados.
+ *
+ * - Por usuário: conta apenas falhas; ao atingir o limite, o login fica
+ *   bloqueado até as falhas saírem da janela (proteção contra força bruta).
+ *   O Retry-After da rejeição é o tempo até isso acontecer, como no IP.
+ * - Por IP: conta todas as tentativas (proteção contra credential stuffing).
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginRateLimiter.class);
+
+    private static final int BALDES_POR_JANELA = 10;
+
+    private final int maxFalhasUsuario;
+    private final int maxTentativasIp;
+    private final long larguraBaldeUsuarioMs;
+    private final long larguraBaldeIpMs;
+
+    // Acima de max-entradas, o Caffeine descarta as chaves menos usadas (W-TinyLFU):
+    // a janela de uma conta sob ataque é acessada a cada tentativa e tende a ficar
+    private final Cache<String, JanelaDeslizante> falhasPorUsuario;
+    private final Cache<String, JanelaDeslizante> tentativasPorIp;
+
+    private final Counter rejeicoesUsuario;
+    private final Counter rejeicoesIp;
+    private final Counter falhas;
+
+    public LoginRateLimiter(
+            @Value("${seguranca.login.max-falhas-usuario:5}") int maxFalhasUsuario,
+            @Value("${seguranca.login.janela-usuario-segundos:900}") long janelaUsuarioSegundos,
+            @Value("${seguranca.login.max-tentativas-ip:30}") int maxTentativasIp,
+            @Value("${seguranca.login.janela-ip-segundos:60}") long janelaIpSegundos,
+            @Value("${seguranca.login.max-entradas:100000}") int maxEntradas,
+            MeterRegistry meterRegistry) {
+
+        this.maxFalhasUsuario = maxFalhasUsuario;
+        this.maxTentativasIp = maxTentativasIp;
+        this.larguraBaldeUsuarioMs = janelaUsuarioSegundos * 1000 / BALDES_POR_JANELA;
+        this.larguraBaldeIpMs = janelaIpSegundos * 1000 / BALDES_POR_JANELA;
+        this.falhasPorUsuario = Caffeine.newBuilder()
+                .maximumSize(maxEntradas)
+                .expireAfterAccess(Duration.ofSeconds(janelaUsuarioSegundos))
+                .build();
+        this.tentativasPorIp = Caffeine.newBuilder()
+                .maximumSize(maxEntradas)
+                .expireAfterAccess(Duration.ofSeconds(janelaIpSegundos))
+                .build();
+
+        this.rejeicoesUsuario = Counter.builder("login.rejeicoes")
+                .description("Tentativas de login rejeitadas antes da autenticação")
+                .tag("motivo", "usuario")
+                .register(meterRegistry);
+        this.rejeicoesIp = Counter.builder("login.rejeicoes")
+                .description("Tentativas de login rejeitadas antes da autenticação")
+                .tag("motivo", "ip")
+                .register(meterRegistry);
+        this.falhas = Counter.builder("login.falhas")
+                .description("Logins com credenciais inválidas")
+                .register(meterRegistry);
+
+        Gauge.builder("login.chaves.monitoradas", falhasPorUsuario, Cache::estimatedSize)
+                .tag("tipo", "usuario")
+                .register(meterRegistry);
+        Gauge.builder("login.chaves.monitoradas", tentativasPorIp, Cache::estimatedSize)
+                .tag("tipo", "ip")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Verifica se a tentativa de login pode prosseguir e a contabiliza para o IP.
+     *
+     * Lança LoginRateLimitException (429) se o usuário estiver bloqueado
+     * ou se o IP tiver excedido o limite de tentativas.
+     */
+    public void verificar(String usuario, String ip) {
+        long agora = System.currentTimeMillis();
+
+        JanelaDeslizante falhasUsuario = falhasPorUsuario.getIfPresent(normalizar(usuario));
+
+        if (falhasUsuario != null && falhasUsuario.total(agora) >= maxFalhasUsuario) {
+            rejeicoesUsuario.increment();
+            logger.warn("Login bloqueado por excesso de falhas: {}", usuario);
+            throw new LoginRateLimitException(segundos(falhasUsuario.msAteFicarAbaixo(agora, maxFalhasUsuario)));
+        }
+
+        JanelaDeslizante tentativasIp = obterJanela(tentativasPorIp, ip, larguraBaldeIpMs);
+
+        if (tentativasIp.total(agora) >= maxTentativasIp) {
+            rejeicoesIp.increment();
+            logger.warn("Login bloqueado por excesso de tentativas do IP: {}", ip);
+            throw new LoginRateLimitException(segundos(tentativasIp.msAteFicarAbaixo(agora, maxTentativasIp)));
+        }
+
+        tentativasIp.incrementar(agora);
+    }
+
+    public void registrarFalha(String usuario) {
+        falhas.increment();
+        obterJanela(falhasPorUsuario, normalizar(usuario), larguraBaldeUsuarioMs)
+                .incrementar(System.currentTimeMillis());
+    }
+
+    public void registrarSucesso(String usuario) {
+        falhasPorUsuario.invalidate(normalizar(usuario));
+    }
+
+    private static JanelaDeslizante obterJanela(Cache<String, JanelaDeslizante> janelas,
+            String chave, long larguraBaldeMs) {
+        return janelas.get(chave, c -> new JanelaDeslizante(larguraBaldeMs));
+    }
+
+    private static String normalizar(String usuario) {
+        return usuario == null ? "" : usuario.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Arredonda para cima: um Retry-After menor que a espera real leva a uma nova rejeição
+    private static long segundos(long millis) {
+        return Math.max(1, (millis + 999) / 1000);
+    }
+
+    /**
+     * Janela deslizante aproximada: BALDES_POR_JANELA baldes de largura fixa.
+     * Cada balde guarda, em um único long, a época (índice do intervalo) a que
+     * pertence e o seu contador; um balde de época antiga é reiniciado na próxima
+     * escrita. Época e contador mudam juntos em um compareAndSet, e por isso um
+     * incremento concorrente com a troca de época não se perde.
+     */
+    static class JanelaDeslizante {
+
+        // 20 bits para o contador (satura em ~1 milhão por balde), 44 bits para a época
+        private static final int BITS_CONTADOR = 20;
+        private static final long MASCARA_CONTADOR = (1L << BITS_CONTADOR) - 1;
+
+        private final long larguraBaldeMs;
+        private final AtomicLongArray baldes = new AtomicLongArray(BALDES_POR_JANELA);
+
+        JanelaDeslizante(long larguraBaldeMs) {
+            this.larguraBaldeMs = Math.max(1, larguraBaldeMs);
+        }
+
+        void incrementar(long agora) {
+            long epoca = agora / larguraBaldeMs;
+            int indice = (int) (epoca % BALDES_POR_JANELA);
+
+            while (true) {
+                long atual = baldes.get(indice);
+                long contador = atual & MASCARA_CONTADOR;
+                long novo;
+
+                if (atual >>> BITS_CONTADOR == epoca) {
+                    if (contador == MASCARA_CONTADOR) {
+                        return;
+                    }
+                    novo = atual + 1;
+                } else {
+                    novo = (epoca << BITS_CONTADOR) | 1;
+                }
+
+                if (baldes.compareAndSet(indice, atual, novo)) {
+                    return;
+                }
+            }
+        }
+
+        long total(long agora) {
+            long epoca = agora / larguraBaldeMs;
+            long soma = 0;
+
+            for (int i = 0; i < BALDES_POR_JANELA; i++) {
+                long balde = baldes.get(i);
+
+                if (epoca - (balde >>> BITS_CONTADOR) < BALDES_POR_JANELA) {
+                    soma += balde & MASCARA_CONTADOR;
+                }
+            }
+
+            return soma;
+        }
+
+        /**
+         * Tempo até o total ficar abaixo do limite: os baldes saem da janela do mais antigo
+         * para o mais novo, cada um BALDES_POR_JANELA épocas depois da sua. Zero se o total
+         * já estiver abaixo.
+         */
+        long msAteFicarAbaixo(long agora, long limite) {
+            long epoca = agora / larguraBaldeMs;
+            long soma = total(agora);
+
+            // As épocas ainda na janela ocupam índices distintos: percorrê-las em ordem
+            // visita os baldes do mais antigo para o mais novo
+            for (long e = epoca - BALDES_POR_JANELA + 1; e <= epoca && soma >= limite; e++) {
+                long balde = baldes.get((int) (e % BALDES_POR_JANELA));
+
+                if (balde >>> BITS_CONTADOR == e) {
+                    soma -= balde & MASCARA_CONTADOR;
+
+                    if (soma < limite) {
+                        return (e + BALDES_POR_JANELA) * larguraBaldeMs - agora;
+                    }
+                }
+            }
+
+            return 0;
+        }
+    }
+
+}
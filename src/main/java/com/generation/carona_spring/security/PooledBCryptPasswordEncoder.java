@@ -0,0 +1,147 @@
+package com.generation.carona_spring.security;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * PasswordEncoder BCrypt que executa o hash e a verificação das senhas
+ * em um pool de threads dedicado e limitado.
+ *
+ * Assim, uma rajada de logins ou cadastros ocupa no máximo as threads do pool,
+ * sem consumir todos os núcleos usados pelo restante da API. Quando o pool e a
+ * fila estão cheios, a requisição é rejeitada imediatamente com 503.
+ */
+public class PooledBCryptPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledBCryptPasswordEncoder.class);
+
+    private static final String SENHA_CALIBRACAO = "calibracao-bcrypt";
+
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+
+    public PooledBCryptPasswordEncoder(int strength, int threads, int capacidadeFila, Duration timeout) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.timeout = timeout;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadeFila), new BCryptThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        logger.info("BCrypt configurado: custo {}, {} threads, fila {}", strength, threads, capacidadeFila);
+    }
+
+    /**
+     * Escolhe o maior custo BCrypt cujo tempo de hash fica dentro do tempo alvo.
+     *
+     * Mede o custo mínimo nesta máquina e extrapola os demais, já que cada
+     * incremento do custo dobra o tempo de processamento.
+     */
+    public static int calibrarCusto(Duration tempoAlvo, int custoMinimo, int custoMaximo) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(custoMinimo);
+
+        // A primeira execução inclui o aquecimento da JVM e é descartada
+        encoder.encode(SENHA_CALIBRACAO);
+
+        long inicio = System.nanoTime();
+        encoder.encode(SENHA_CALIBRACAO);
+        long nanosCustoMinimo = Math.max(1, System.nanoTime() - inicio);
+
+        int custo = custoMinimo;
+        long nanosEstimados = nanosCustoMinimo;
+
+        while (custo < custoMaximo && nanosEstimados * 2 <= tempoAlvo.toNanos()) {
+            custo++;
+            nanosEstimados *= 2;
+        }
+
+        logger.info("Calibração BCrypt: custo {} leva ~{} ms (alvo {} ms)", custo,
+                TimeUnit.NANOSECONDS.toMillis(nanosEstimados), tempoAlvo.toMillis());
+        return custo;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executar(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executar(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Indica se o hash foi gerado com um custo menor que o atual.
+     *
+     * Usado pelo Spring Security para regravar a senha no login
+     * (ver UserDetailsServiceImpl.updatePassword).
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> T executar(Callable<T> tarefa) {
+        Future<T> futuro;
+
+        try {
+            futuro = executor.submit(tarefa);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Pool BCrypt saturado, requisição rejeitada");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Servidor ocupado, tente novamente em instantes", e);
+        }
+
+        try {
+            return futuro.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Tempo esgotado ao processar a senha", e);
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Processamento da senha interrompido", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException("Erro ao processar a senha", e.getCause());
+        }
+    }
+
+    private static class BCryptThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger contador = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable tarefa) {
+            Thread thread = new Thread(tarefa, "bcrypt-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
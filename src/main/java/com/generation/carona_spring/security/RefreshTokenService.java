@@ -0,0 +1,178 @@
+package com.generation.carona_spring.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.generation.carona_spring.model.RefreshToken;
+import com.generation.carona_spring.model.Usuario;
+import com.generation.carona_spring.model.UsuarioRefresh;
+import com.generation.carona_spring.repository.RefreshTokenRepository;
+
+/**
+ * Emissão, rotação e revogação de refresh tokens.
+ *
+ * O refresh token permite obter um novo JWT sem enviar a senha, evitando
+ * o BCrypt a cada expiração do token de acesso. A cada uso, o token é
+ * revogado e substituído por outro da mesma família (rotação). Se um token
+ * já revogado for reapresentado, toda a família é revogada.
+ *
+ * Como cada login e cada renovação gravam uma linha, os tokens são apagados
+ * periodicamente (limpar). Os revogados de uma família ainda ativa ficam até
+ * expirar, para que o reuso continue sendo detectado.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TAMANHO_TOKEN_BYTES = 32;
+
+    // Famílias encerradas apagadas por comando DELETE
+    private static final int FAMILIAS_POR_LOTE = 500;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtService jwtService;
+    private final Duration validade;
+    private final SecureRandom geradorAleatorio = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, JwtService jwtService,
+            @Value("${seguranca.refresh-token.validade-dias:30}") long validadeDias) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtService = jwtService;
+        this.validade = Duration.ofDays(validadeDias);
+    }
+
+    /**
+     * Emite o primeiro refresh token de uma nova família (login).
+     */
+    @Transactional
+    public String gerar(Usuario usuario) {
+        return emitir(usuario, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Troca um refresh token válido por um novo JWT e um novo refresh token.
+     *
+     * Retorna vazio se o token não existir, estiver expirado ou já tiver sido usado.
+     */
+    @Transactional
+    public Optional<UsuarioRefresh> renovar(String token) {
+
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        Optional<RefreshToken> encontrado = refreshTokenRepository.findByTokenHash(calcularHash(token));
+
+        if (encontrado.isEmpty()) {
+            return Optional.empty();
+        }
+
+        RefreshToken refreshToken = encontrado.get();
+
+        if (refreshToken.getExpiraEm().isBefore(Instant.now())) {
+            return Optional.empty();
+        }
+
+        // A revogação condicional garante que apenas uma requisição use o token
+        if (refreshToken.isRevogado() || refreshTokenRepository.revogar(refreshToken.getId()) == 0) {
+            logger.warn("Reuso de refresh token detectado, revogando a família {}", refreshToken.getFamilia());
+            refreshTokenRepository.revogarFamilia(refreshToken.getFamilia());
+            return Optional.empty();
+        }
+
+        Usuario usuario = refreshToken.getUsuario();
+
+        UsuarioRefresh resposta = new UsuarioRefresh();
+        resposta.setToken("Bearer " + jwtService.generateToken(usuario.getUsuario()));
+        resposta.setRefreshToken(emitir(usuario, refreshToken.getFamilia()));
+        return Optional.of(resposta);
+    }
+
+    /**
+     * Revoga o refresh token informado e todos os renovados a partir do mesmo login (logout).
+     */
+    @Transactional
+    public void revogar(String token) {
+
+        if (token == null || token.isBlank()) {
+            return;
+        }
+
+        refreshTokenRepository.findByTokenHash(calcularHash(token))
+                .ifPresent(refreshToken -> refreshTokenRepository.revogarFamilia(refreshToken.getFamilia()));
+    }
+
+    /**
+     * Revoga todos os refresh tokens do usuário (ex.: após a troca de senha).
+     */
+    @Transactional
+    public void revogarTodos(Usuario usuario) {
+        refreshTokenRepository.revogarPorUsuario(usuario.getId());
+    }
+
+    /**
+     * Apaga os tokens expirados e os das famílias sem nenhum token ativo.
+     * Cada comando roda na sua própria transação (métodos do repositório).
+     */
+    @Scheduled(fixedDelayString = "${seguranca.refresh-token.limpeza-ms:3600000}",
+            initialDelayString = "${seguranca.refresh-token.limpeza-ms:3600000}")
+    public void limpar() {
+        int apagados = refreshTokenRepository.apagarExpirados(Instant.now());
+        List<String> familias;
+
+        do {
+            familias = refreshTokenRepository.findFamiliasEncerradas(PageRequest.of(0, FAMILIAS_POR_LOTE));
+
+            if (!familias.isEmpty()) {
+                apagados += refreshTokenRepository.apagarFamilias(familias);
+            }
+        } while (familias.size() == FAMILIAS_POR_LOTE);
+
+        if (apagados > 0) {
+            logger.info("Refresh tokens apagados: {}", apagados);
+        }
+    }
+
+    private String emitir(Usuario usuario, String familia) {
+        byte[] bytes = new byte[TAMANHO_TOKEN_BYTES];
+        geradorAleatorio.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(calcularHash(token));
+        refreshToken.setFamilia(familia);
+        refreshToken.setUsuario(usuario);
+        refreshToken.setExpiraEm(Instant.now().plus(validade));
+        refreshTokenRepository.save(refreshToken);
+
+        return token;
+    }
+
+    private static String calcularHash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 não disponível", e);
+        }
+    }
+
+}
@@ -1,6 +1,10 @@
 package com.generation.carona_spring.security;
 
+import java.time.Duration;
+import java.util.Set;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -9,11 +13,12 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import jakarta.servlet.DispatcherType;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
@@ -21,16 +26,35 @@ public class SecurityConfig {
     private static final String[] PUBLIC_ENDPOINTS = {
         "/usuarios/logar",
         "/usuarios/cadastrar",
+        "/usuarios/refresh",
+        "/usuarios/logout",
         "/error/**",
         "/", "/docs", "/swagger-ui/**", "/v3/api-docs/**", "/swagger-resources/**"
     };
 
+    // Coletados sem autenticação apenas pela porta de gerenciamento (management.server.port)
+    private static final Set<String> ENDPOINTS_GERENCIAMENTO = Set.of("/actuator/health", "/actuator/prometheus");
+
     @Autowired
     private JwtAuthFilter jwtAuthFilter;
 
+    @Value("${management.server.port:-1}")
+    private int portaGerenciamento;
+
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
+    PasswordEncoder passwordEncoder(
+            @Value("${seguranca.bcrypt.threads:0}") int threads,
+            @Value("${seguranca.bcrypt.fila:64}") int capacidadeFila,
+            @Value("${seguranca.bcrypt.timeout-ms:5000}") long timeoutMs,
+            @Value("${seguranca.bcrypt.tempo-alvo-ms:250}") long tempoAlvoMs,
+            @Value("${seguranca.bcrypt.custo-minimo:10}") int custoMinimo,
+            @Value("${seguranca.bcrypt.custo-maximo:14}") int custoMaximo) {
+
+        // Por padrão, o BCrypt usa no máximo metade dos núcleos disponíveis
+        int totalThreads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int custo = PooledBCryptPasswordEncoder.calibrarCusto(Duration.ofMillis(tempoAlvoMs), custoMinimo, custoMaximo);
+
+        return new PooledBCryptPasswordEncoder(custo, totalThreads, capacidadeFila, Duration.ofMillis(timeoutMs));
     }
 
     @Bean
@@ -48,6 +72,11 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers(PUBLIC_ENDPOINTS).permitAll()
                 .requestMatchers(HttpMethod.OPTIONS).permitAll()
+                .requestMatchers(request -> request.getLocalPort() == portaGerenciamento
+                        && ENDPOINTS_GERENCIAMENTO.contains(request.getRequestURI())).permitAll()
+                // Retomada de uma resposta assíncrona (Mono); a requisição já foi autorizada
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                .requestMatchers("/tarifas/recarregar", "/tarifas/recalculo").hasRole(UserDetailsImpl.PAPEL_ADMIN)
                 .anyRequest().authenticated()
             )
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
@@ -2,8 +2,10 @@ package com.generation.carona_spring.security;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.generation.carona_spring.model.Usuario;
@@ -12,17 +14,29 @@ public class UserDetailsImpl implements UserDetails {
 
 	private static final long serialVersionUID = 1L;
 
+	public static final String PAPEL_ADMIN = "ADMIN";
+
 	private String username;
 	private String password;
+	private boolean administrador;
 
 	public UserDetailsImpl(Usuario user) {
+		this(user, false);
+	}
+
+	public UserDetailsImpl(Usuario user, boolean administrador) {
 		this.username = user.getUsuario();
 		this.password = user.getSenha();
+		this.administrador = administrador;
 	}
 
 	@Override
 	public Collection<? extends GrantedAuthority> getAuthorities() {
 
+		if (administrador) {
+			return List.of(new SimpleGrantedAuthority("ROLE_" + PAPEL_ADMIN));
+		}
+
 		return Collections.emptyList();  
 	}
 
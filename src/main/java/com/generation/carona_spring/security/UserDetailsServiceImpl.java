@@ -1,9 +1,12 @@
 package com.generation.carona_spring.security;
 
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -12,11 +15,24 @@ import com.generation.carona_spring.model.Usuario;
 import com.generation.carona_spring.repository.UsuarioRepository;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 	
 	@Autowired
 	private UsuarioRepository usuarioRepository;
 
+	private final Set<Long> administradores;
+
+	/**
+	 * Administradores (papel ADMIN): ids de usuário em seguranca.administradores, separados por vírgula.
+	 * Só eles podem recarregar as tarifas e recalcular as viagens futuras.
+	 * 
+	 * O papel segue o id, que o usuário não escolhe nem altera: o e-mail não é verificado,
+	 * e qualquer um poderia se cadastrar ou mudar o perfil para o e-mail de um administrador.
+	 */
+	public UserDetailsServiceImpl(@Value("${seguranca.administradores:}") Set<Long> administradores) {
+		this.administradores = Set.copyOf(administradores);
+	}
+
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
@@ -27,10 +43,28 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 		Optional<Usuario> usuario = usuarioRepository.findByUsuario(username);
 
 		if (usuario.isPresent()) {
-			return new UserDetailsImpl(usuario.get());
+			return new UserDetailsImpl(usuario.get(), administrador(usuario.get()));
 		}else {
 			throw new UsernameNotFoundException("Usuário não encontrado: " + username);
 		}
 			
 	}
+
+	/**
+	 * Regrava o hash da senha quando o login é feito com um hash de custo
+	 * menor que o atual (ver PooledBCryptPasswordEncoder.upgradeEncoding).
+	 */
+	@Override
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+
+		Usuario usuario = usuarioRepository.findByUsuario(user.getUsername())
+				.orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: " + user.getUsername()));
+
+		usuario.setSenha(newPassword);
+		return new UserDetailsImpl(usuarioRepository.save(usuario), administrador(usuario));
+	}
+
+	private boolean administrador(Usuario usuario) {
+		return administradores.contains(usuario.getId());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,224 @@
+package com.generation.carona_spring.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.generation.carona_spring.model.Viagem;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Horários ocupados de cada veículo, para impedir viagens sobrepostas com o mesmo veículo.
+ *
+ * Cada veículo tem uma árvore de intervalos em memória com as viagens de
+ * [dataPartida, dataPartida + tempoEstimado): a verificação de conflito custa O(log n)
+ * no número de viagens do veículo, sem consulta ao banco. As árvores são montadas a
+ * partir do banco na inicialização, antes de o servidor aceitar requisições, e
+ * mantidas pelo ViagemService a cada criação, atualização e exclusão e pelo
+ * RecalculoTarifaService, que altera o tempo estimado. As viagens já terminadas
+ * saem das árvores periodicamente (limpeza-ms).
+ *
+ * Verificação e gravação ocorrem sob a trava da árvore do veículo, de modo que duas
+ * viagens simultâneas no mesmo horário não passam ambas. A trava vale para esta
+ * instância: com várias instâncias da aplicação, cada uma só conhece as viagens
+ * gravadas por ela desde a inicialização.
+ */
+@Service
+@DependsOn("flywayInitializer") // lê tb_viagens já migrada
+public class AgendaVeiculos {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgendaVeiculos.class);
+
+    private static final String SQL_VIAGENS =
+            "SELECT id, veiculo_id, data_partida, tempo_estimado FROM tb_viagens "
+            + "WHERE id > ? AND veiculo_id IS NOT NULL AND data_partida >= ? ORDER BY id LIMIT ?";
+
+    private static final int TAMANHO_LOTE_CARGA = 5000;
+
+    // Viagens sem tempo estimado ocupam ao menos este intervalo
+    private static final long DURACAO_MINIMA_SEGUNDOS = 60;
+
+    private record Agendamento(long veiculoId, long inicio) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long horizonteCargaHoras;
+
+    private final Map<Long, ArvoreIntervalos> arvores = new ConcurrentHashMap<>();
+    private final Map<Long, Agendamento> agendamentos = new ConcurrentHashMap<>();
+
+    private final Counter conflitos;
+
+    public AgendaVeiculos(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                          @Value("${agenda.horizonte-carga-horas:24}") long horizonteCargaHoras) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.horizonteCargaHoras = horizonteCargaHoras;
+        this.conflitos = meterRegistry.counter("viagem.agenda.conflitos");
+    }
+
+    /**
+     * Carrega as viagens que partem a partir de horizonte-carga-horas atrás: as anteriores
+     * já terminaram e não conflitam com novas viagens.
+     */
+    @PostConstruct
+    public void carregar() {
+        LocalDateTime inicio = LocalDateTime.now().minusHours(horizonteCargaHoras);
+        long[] ultimoId = {0};
+        int[] lidas = new int[1];
+        long total = 0;
+
+        do {
+            lidas[0] = 0;
+            jdbcTemplate.query(SQL_VIAGENS, resultado -> {
+                ultimoId[0] = resultado.getLong(1);
+                lidas[0]++;
+                Double tempoEstimado = resultado.getObject(4, Double.class);
+                inserir(resultado.getLong(1), resultado.getLong(2),
+                        resultado.getObject(3, LocalDateTime.class), tempoEstimado);
+            }, ultimoId[0], inicio, TAMANHO_LOTE_CARGA);
+            total += lidas[0];
+        } while (lidas[0] == TAMANHO_LOTE_CARGA);
+
+        logger.info("Agenda dos veículos carregada: {} viagens de {} veículos", total, arvores.size());
+    }
+
+    /**
+     * Grava a viagem se o veículo estiver livre no horário dela, e a registra na agenda.
+     * A gravação roda sob a trava do veículo e deve concluir a transação antes de retornar.
+     *
+     * @throws ResponseStatusException 409 se o veículo já tiver outra viagem no horário
+     */
+    public Viagem agendar(Viagem viagem, Supplier<Viagem> gravacao) {
+        long veiculoId = viagem.getVeiculo().getId();
+        long inicio = instante(viagem.getDataPartida());
+        long fim = fim(inicio, viagem.getTempoEstimado());
+        long propria = viagem.getId() != null ? viagem.getId() : ArvoreIntervalos.NENHUM;
+
+        ArvoreIntervalos arvore = arvores.computeIfAbsent(veiculoId, id -> new ArvoreIntervalos());
+        Viagem gravada;
+        Agendamento anterior;
+
+        synchronized (arvore) {
+            long conflito = arvore.buscarSobreposto(inicio, fim, propria);
+
+            if (conflito != ArvoreIntervalos.NENHUM) {
+                conflitos.increment();
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "O veículo já tem a viagem " + conflito + " neste horário!");
+            }
+
+            gravada = gravacao.get();
+
+            anterior = agendamentos.put(gravada.getId(), new Agendamento(veiculoId, inicio));
+            if (anterior != null && anterior.veiculoId() == veiculoId) {
+                arvore.remover(gravada.getId(), anterior.inicio());
+            }
+            arvore.inserir(gravada.getId(), inicio, fim);
+        }
+
+        // Troca de veículo: a viagem sai da agenda do anterior fora da trava do novo (evita deadlock)
+        if (anterior != null && anterior.veiculoId() != veiculoId) {
+            retirar(gravada.getId(), anterior);
+        }
+
+        return gravada;
+    }
+
+    /**
+     * Atualiza a duração de uma viagem já agendada, sem verificar conflitos: a viagem já está
+     * gravada com o novo tempo estimado. Ignora a viagem se ela mudou de veículo ou de horário
+     * desde que foi lida (a atualização pelo ViagemService já registrou o horário novo).
+     */
+    public void atualizarDuracao(long viagemId, long veiculoId, LocalDateTime dataPartida, double tempoEstimado) {
+        long inicio = instante(dataPartida);
+        ArvoreIntervalos arvore = arvores.get(veiculoId);
+
+        if (arvore == null) {
+            return;
+        }
+
+        synchronized (arvore) {
+            if (new Agendamento(veiculoId, inicio).equals(agendamentos.get(viagemId))
+                    && arvore.remover(viagemId, inicio)) {
+                arvore.inserir(viagemId, inicio, fim(inicio, tempoEstimado));
+            }
+        }
+    }
+
+    /**
+     * Retira das árvores as viagens que já terminaram: não conflitam com novas viagens
+     * e, sem a limpeza, as árvores cresceriam sem limite até a aplicação reiniciar.
+     */
+    @Scheduled(fixedDelayString = "${agenda.limpeza-ms:600000}", initialDelayString = "${agenda.limpeza-ms:600000}")
+    public void limpar() {
+        long agora = instante(LocalDateTime.now());
+        int removidas = 0;
+
+        for (Map.Entry<Long, ArvoreIntervalos> entrada : arvores.entrySet()) {
+            ArvoreIntervalos arvore = entrada.getValue();
+
+            synchronized (arvore) {
+                for (ArvoreIntervalos.Intervalo intervalo : arvore.removerTerminados(agora)) {
+                    agendamentos.remove(intervalo.id(), new Agendamento(entrada.getKey(), intervalo.inicio()));
+                    removidas++;
+                }
+            }
+        }
+
+        if (removidas > 0) {
+            logger.info("Agenda dos veículos: {} viagens terminadas removidas", removidas);
+        }
+    }
+
+    public void remover(Long viagemId) {
+        Agendamento agendamento = agendamentos.remove(viagemId);
+
+        if (agendamento != null) {
+            retirar(viagemId, agendamento);
+        }
+    }
+
+    private void inserir(long viagemId, long veiculoId, LocalDateTime dataPartida, Double tempoEstimado) {
+        long inicio = instante(dataPartida);
+        ArvoreIntervalos arvore = arvores.computeIfAbsent(veiculoId, id -> new ArvoreIntervalos());
+
+        synchronized (arvore) {
+            arvore.inserir(viagemId, inicio, fim(inicio, tempoEstimado));
+        }
+        agendamentos.put(viagemId, new Agendamento(veiculoId, inicio));
+    }
+
+    private void retirar(long viagemId, Agendamento agendamento) {
+        ArvoreIntervalos arvore = arvores.get(agendamento.veiculoId());
+
+        if (arvore != null) {
+            synchronized (arvore) {
+                arvore.remover(viagemId, agendamento.inicio());
+            }
+        }
+    }
+
+    private static long instante(LocalDateTime data) {
+        return data.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static long fim(long inicio, Double tempoEstimadoMinutos) {
+        long duracao = tempoEstimadoMinutos == null ? 0 : Math.round(tempoEstimadoMinutos * 60);
+        return inicio + Math.max(duracao, DURACAO_MINIMA_SEGUNDOS);
+    }
+
+}
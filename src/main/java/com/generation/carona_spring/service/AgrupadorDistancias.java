@@ -0,0 +1,178 @@
+package com.generation.carona_spring.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.generation.carona_spring.records.ParCoordenadas;
+
+/**
+ * Agrupa os cálculos de distância simultâneos em um único pedido à API de rotas.
+ *
+ * A primeira requisição de um lote espera até janela-ms por outras; o lote é então
+ * resolvido de uma só vez (uma chamada, uma pausa) e cada requisição recebe a sua
+ * distância. Se o lote atingir o tamanho máximo antes disso, quem o completou o
+ * resolve imediatamente. Não há threads próprias: o lote é resolvido na thread de
+ * uma das requisições, enquanto as demais aguardam o seu resultado.
+ *
+ * Se a chamada do lote falhar, cada par é pedido sozinho (serviço route), para que
+ * um erro no table não derrube todas as requisições do lote.
+ */
+final class AgrupadorDistancias {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgrupadorDistancias.class);
+
+    private static final class Lote {
+        final List<ParCoordenadas> pares = new ArrayList<>();
+        final List<CompletableFuture<Double>> resultados = new ArrayList<>();
+    }
+
+    // Recebe os pares do lote e retorna as distâncias na mesma ordem (null = sem rota)
+    private final Function<List<ParCoordenadas>, Double[]> resolvedor;
+    private final long janelaNanos;
+    private final int tamanhoMaximo;
+
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition loteFechado = trava.newCondition();
+    private Lote aberto;
+
+    AgrupadorDistancias(Function<List<ParCoordenadas>, Double[]> resolvedor, long janelaMs, int tamanhoMaximo) {
+        this.resolvedor = resolvedor;
+        this.janelaNanos = TimeUnit.MILLISECONDS.toNanos(janelaMs);
+        this.tamanhoMaximo = tamanhoMaximo;
+    }
+
+    /**
+     * Distância (km) do par, calculada junto com as das demais requisições do mesmo lote.
+     */
+    double calcular(ParCoordenadas par) {
+        CompletableFuture<Double> resultado = new CompletableFuture<>();
+        Lote fechado = null;
+
+        trava.lock();
+        try {
+            boolean primeiro = aberto == null;
+            if (primeiro) {
+                aberto = new Lote();
+            }
+
+            Lote lote = aberto;
+            lote.pares.add(par);
+            lote.resultados.add(resultado);
+
+            if (lote.pares.size() >= tamanhoMaximo) {
+                aberto = null;
+                fechado = lote;
+                loteFechado.signalAll();
+            } else if (primeiro) {
+                aguardarJanela(lote);
+
+                if (aberto == lote) {
+                    aberto = null;
+                    fechado = lote;
+                }
+            }
+        } finally {
+            trava.unlock();
+        }
+
+        if (fechado != null) {
+            resolver(fechado);
+        }
+
+        try {
+            return resultado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Aguarda o fim da janela ou o fechamento do lote por tamanho. Se interrompida, encerra
+     * a espera mas o lote ainda é resolvido: as demais requisições dependem desta thread.
+     */
+    private void aguardarJanela(Lote lote) {
+        long restante = janelaNanos;
+
+        try {
+            while (aberto == lote && restante > 0) {
+                restante = loteFechado.awaitNanos(restante);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void resolver(Lote lote) {
+        Double[] distancias;
+
+        try {
+            distancias = resolvedor.apply(lote.pares);
+        } catch (RuntimeException e) {
+            if (lote.pares.size() == 1) {
+                lote.resultados.get(0).completeExceptionally(e);
+            } else {
+                logger.warn("Falha ao calcular {} distâncias em lote; pedindo uma a uma: {}",
+                        lote.pares.size(), e.toString());
+                resolverUmAUm(lote);
+            }
+            return;
+        }
+
+        for (int i = 0; i < lote.resultados.size(); i++) {
+            completar(lote.resultados.get(i), distancias[i]);
+        }
+    }
+
+    /**
+     * Pede cada par do lote sozinho. Um par sem rota (404) falha só para a sua requisição;
+     * qualquer outro erro indica a API fora do ar, e os pares restantes recebem o mesmo
+     * erro sem novas chamadas.
+     */
+    private void resolverUmAUm(Lote lote) {
+        RuntimeException falha = null;
+
+        for (int i = 0; i < lote.pares.size(); i++) {
+            CompletableFuture<Double> resultado = lote.resultados.get(i);
+
+            if (falha != null) {
+                resultado.completeExceptionally(falha);
+                continue;
+            }
+
+            try {
+                completar(resultado, resolvedor.apply(List.of(lote.pares.get(i)))[0]);
+            } catch (ResponseStatusException e) {
+                resultado.completeExceptionally(e);
+                if (e.getStatusCode() != HttpStatus.NOT_FOUND) {
+                    falha = e;
+                }
+            } catch (RuntimeException e) {
+                resultado.completeExceptionally(e);
+                falha = e;
+            }
+        }
+    }
+
+    private static void completar(CompletableFuture<Double> resultado, Double distancia) {
+        if (distancia != null) {
+            resultado.complete(distancia);
+        } else {
+            resultado.completeExceptionally(new ResponseStatusException(HttpStatus.NOT_FOUND, "Rota não encontrada"));
+        }
+    }
+
+}
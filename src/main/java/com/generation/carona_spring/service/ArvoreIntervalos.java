@@ -0,0 +1,241 @@
+package com.generation.carona_spring.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Árvore de intervalos aumentada: árvore AVL ordenada pelo início de cada intervalo,
+ * em que cada nó guarda também o maior fim da sua subárvore. Inserção, remoção e
+ * busca de um intervalo sobreposto custam O(log n).
+ *
+ * Os intervalos são semiabertos, [inicio, fim): uma viagem que termina às 10h não
+ * conflita com outra que parte às 10h. Não é thread-safe; AgendaVeiculos sincroniza
+ * o acesso a cada árvore.
+ */
+final class ArvoreIntervalos {
+
+    static final long NENHUM = -1;
+
+    record Intervalo(long id, long inicio, long fim) {}
+
+    private static final class No {
+        final long inicio;
+        final long fim;
+        final long id;
+        long maiorFim;
+        int altura = 1;
+        No esquerda;
+        No direita;
+
+        No(long inicio, long fim, long id) {
+            this.inicio = inicio;
+            this.fim = fim;
+            this.id = id;
+            this.maiorFim = fim;
+        }
+    }
+
+    private No raiz;
+    private int tamanho;
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    void inserir(long id, long inicio, long fim) {
+        raiz = inserir(raiz, new No(inicio, fim, id));
+        tamanho++;
+    }
+
+    /**
+     * Remove o intervalo com este id e início; retorna false se ele não estiver na árvore.
+     */
+    boolean remover(long id, long inicio) {
+        int antes = tamanho;
+        raiz = remover(raiz, id, inicio);
+        return tamanho < antes;
+    }
+
+    /**
+     * Remove e retorna os intervalos que terminam até o instante informado.
+     * Percorre apenas os nós que começam antes dele.
+     */
+    List<Intervalo> removerTerminados(long ate) {
+        List<Intervalo> terminados = new ArrayList<>();
+        coletarTerminados(raiz, ate, terminados);
+
+        for (Intervalo intervalo : terminados) {
+            remover(intervalo.id(), intervalo.inicio());
+        }
+
+        return terminados;
+    }
+
+    /**
+     * Id de um intervalo que se sobrepõe a [inicio, fim), desconsiderando o id informado
+     * (a própria viagem, na atualização), ou NENHUM.
+     */
+    long buscarSobreposto(long inicio, long fim, long ignorar) {
+        return buscar(raiz, inicio, fim, ignorar);
+    }
+
+    private static long buscar(No no, long inicio, long fim, long ignorar) {
+        // Nenhum intervalo desta subárvore termina depois do início procurado
+        if (no == null || no.maiorFim <= inicio) {
+            return NENHUM;
+        }
+
+        long encontrado = buscar(no.esquerda, inicio, fim, ignorar);
+        if (encontrado != NENHUM) {
+            return encontrado;
+        }
+
+        // Este nó e os da direita começam depois do fim procurado
+        if (no.inicio >= fim) {
+            return NENHUM;
+        }
+
+        if (no.fim > inicio && no.id != ignorar) {
+            return no.id;
+        }
+
+        return buscar(no.direita, inicio, fim, ignorar);
+    }
+
+    private static void coletarTerminados(No no, long ate, List<Intervalo> terminados) {
+        if (no == null) {
+            return;
+        }
+
+        coletarTerminados(no.esquerda, ate, terminados);
+
+        // Este nó e os da direita começam depois do instante: ainda não terminaram
+        if (no.inicio >= ate) {
+            return;
+        }
+
+        if (no.fim <= ate) {
+            terminados.add(new Intervalo(no.id, no.inicio, no.fim));
+        }
+
+        coletarTerminados(no.direita, ate, terminados);
+    }
+
+    private static int comparar(long inicio, long id, No no) {
+        int comparacao = Long.compare(inicio, no.inicio);
+        return comparacao != 0 ? comparacao : Long.compare(id, no.id);
+    }
+
+    private static No inserir(No no, No novo) {
+        if (no == null) {
+            return novo;
+        }
+
+        if (comparar(novo.inicio, novo.id, no) < 0) {
+            no.esquerda = inserir(no.esquerda, novo);
+        } else {
+            no.direita = inserir(no.direita, novo);
+        }
+
+        return balancear(no);
+    }
+
+    private No remover(No no, long id, long inicio) {
+        if (no == null) {
+            return null;
+        }
+
+        int comparacao = comparar(inicio, id, no);
+
+        if (comparacao < 0) {
+            no.esquerda = remover(no.esquerda, id, inicio);
+        } else if (comparacao > 0) {
+            no.direita = remover(no.direita, id, inicio);
+        } else {
+            tamanho--;
+
+            if (no.esquerda == null || no.direita == null) {
+                return no.esquerda != null ? no.esquerda : no.direita;
+            }
+
+            // Substitui pelo sucessor (menor nó da direita)
+            No sucessor = no.direita;
+            while (sucessor.esquerda != null) {
+                sucessor = sucessor.esquerda;
+            }
+
+            No substituto = new No(sucessor.inicio, sucessor.fim, sucessor.id);
+            substituto.direita = removerMenor(no.direita);
+            substituto.esquerda = no.esquerda;
+            return balancear(substituto);
+        }
+
+        return balancear(no);
+    }
+
+    private static No removerMenor(No no) {
+        if (no.esquerda == null) {
+            return no.direita;
+        }
+
+        no.esquerda = removerMenor(no.esquerda);
+        return balancear(no);
+    }
+
+    private static int altura(No no) {
+        return no == null ? 0 : no.altura;
+    }
+
+    private static void atualizar(No no) {
+        no.altura = 1 + Math.max(altura(no.esquerda), altura(no.direita));
+
+        long maiorFim = no.fim;
+        if (no.esquerda != null) {
+            maiorFim = Math.max(maiorFim, no.esquerda.maiorFim);
+        }
+        if (no.direita != null) {
+            maiorFim = Math.max(maiorFim, no.direita.maiorFim);
+        }
+        no.maiorFim = maiorFim;
+    }
+
+    private static No balancear(No no) {
+        atualizar(no);
+        int fator = altura(no.esquerda) - altura(no.direita);
+
+        if (fator > 1) {
+            if (altura(no.esquerda.esquerda) < altura(no.esquerda.direita)) {
+                no.esquerda = girarEsquerda(no.esquerda);
+            }
+            return girarDireita(no);
+        }
+
+        if (fator < -1) {
+            if (altura(no.direita.direita) < altura(no.direita.esquerda)) {
+                no.direita = girarDireita(no.direita);
+            }
+            return girarEsquerda(no);
+        }
+
+        return no;
+    }
+
+    private static No girarDireita(No no) {
+        No novaRaiz = no.esquerda;
+        no.esquerda = novaRaiz.direita;
+        novaRaiz.direita = no;
+        atualizar(no);
+        atualizar(novaRaiz);
+        return novaRaiz;
+    }
+
+    private static No girarEsquerda(No no) {
+        No novaRaiz = no.direita;
+        no.direita = novaRaiz.esquerda;
+        novaRaiz.esquerda = no;
+        atualizar(no);
+        atualizar(novaRaiz);
+        return novaRaiz;
+    }
+
+}
@@ -0,0 +1,191 @@
+package com.generation.carona_spring.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Chaves de idempotência (cabeçalho Idempotency-Key) para requisições que gravam dados.
+ *
+ * A primeira requisição com uma chave executa a operação; as repetições com a mesma chave
+ * (o cliente que desistiu de esperar e tentou de novo) não executam nada:
+ *
+ * - se a original ainda está em andamento, esperam por ela (até espera-maxima-ms, depois 409);
+ * - se já terminou, recebem o mesmo resultado, guardado por ttl-minutos.
+ *
+ * O resultado é guardado já convertido em JSON, uma única vez, ao fim da operação: todas
+ * as respostas da chave trazem os mesmos bytes, e o cache não mantém entidades (com as suas
+ * associações) nem depende de elas não serem alteradas depois.
+ *
+ * A chave vale por usuário e está presa ao corpo da requisição: a mesma chave com outro
+ * corpo é rejeitada com 422. Falhas não são guardadas, para que o cliente possa tentar de
+ * novo com a mesma chave. O armazenamento fica em memória (Caffeine), limitado a
+ * tamanho-maximo chaves concluídas; as chaves em andamento têm peso zero e nunca são
+ * descartadas pelo limite, senão uma repetição executaria a operação de novo. Com mais
+ * de uma instância, as repetições precisam chegar à mesma.
+ */
+@Service
+public class IdempotenciaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+    private final ConcurrentMap<String, Execucao> execucoes;
+    private final ObjectMapper conversorJson;
+    private final long esperaMaximaMs;
+
+    private final Counter novas;
+    private final Counter repetidas;
+    private final Counter conflitos;
+    private final Counter emAndamento;
+
+    public IdempotenciaService(ObjectMapper conversorJson, MeterRegistry meterRegistry,
+                               @Value("${idempotencia.tamanho-maximo:10000}") long tamanhoMaximo,
+                               @Value("${idempotencia.ttl-minutos:1440}") long ttlMinutos,
+                               @Value("${idempotencia.espera-maxima-ms:30000}") long esperaMaximaMs) {
+        this.conversorJson = conversorJson;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.execucoes = Caffeine.newBuilder()
+                .maximumWeight(tamanhoMaximo)
+                .weigher((String chave, Execucao execucao) -> execucao.resultado().isDone() ? 1 : 0)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutos))
+                .<String, Execucao>build()
+                .asMap();
+
+        this.novas = contador(meterRegistry, "nova");
+        this.repetidas = contador(meterRegistry, "repetida");
+        this.conflitos = contador(meterRegistry, "conflito");
+        this.emAndamento = contador(meterRegistry, "em_andamento");
+
+        Gauge.builder("idempotencia.chaves", execucoes, ConcurrentMap::size)
+                .description("Chaves de idempotência guardadas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Executa a operação uma única vez por usuário e chave.
+     *
+     * @param usuario  dono da chave (login)
+     * @param chave    valor do cabeçalho Idempotency-Key
+     * @param corpo    corpo da requisição, comparado com o da requisição original
+     * @param operacao operação a executar na primeira requisição
+     * @return resultado da operação em JSON
+     */
+    public Resultado executar(String usuario, String chave, Object corpo, Supplier<?> operacao) {
+        if (chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+        }
+
+        String chaveUsuario = usuario + ":" + chave;
+        // A impressão é calculada antes da operação, que pode alterar o objeto do corpo
+        Execucao nova = new Execucao(impressao(corpo), new CompletableFuture<>());
+        Execucao existente = execucoes.putIfAbsent(chaveUsuario, nova);
+
+        if (existente == null) {
+            novas.increment();
+            return new Resultado(executarOriginal(chaveUsuario, nova, operacao), false);
+        }
+
+        if (!existente.impressao().equals(nova.impressao())) {
+            conflitos.increment();
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key já usada com outro corpo de requisição");
+        }
+
+        return new Resultado(aguardarOriginal(existente), true);
+    }
+
+    private byte[] executarOriginal(String chaveUsuario, Execucao execucao, Supplier<?> operacao) {
+        try {
+            byte[] json = serializar(operacao.get());
+            execucao.resultado().complete(json);
+            // O peso só é recalculado na escrita: regrava a chave para que passe a contar no limite
+            execucoes.replace(chaveUsuario, execucao, execucao);
+            return json;
+        } catch (RuntimeException | Error e) {
+            // Sem guardar a falha: a próxima tentativa com a mesma chave executa de novo
+            execucoes.remove(chaveUsuario, execucao);
+            execucao.resultado().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private byte[] aguardarOriginal(Execucao execucao) {
+        try {
+            byte[] json = execucao.resultado().get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+            repetidas.increment();
+            return json;
+        } catch (TimeoutException e) {
+            emAndamento.increment();
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A requisição original ainda está em andamento. Tente novamente mais tarde.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Requisição interrompida");
+        } catch (ExecutionException e) {
+            // A original falhou enquanto esta esperava: repassa o mesmo erro
+            if (e.getCause() instanceof ResponseStatusException erro) {
+                throw erro;
+            }
+
+            logger.warn("Requisição original falhou: {}", e.getCause().toString());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Erro ao processar a requisição");
+        }
+    }
+
+    private String impressao(Object corpo) {
+        try {
+            byte[] resumo = MessageDigest.getInstance("SHA-256").digest(conversorJson.writeValueAsBytes(corpo));
+            return HexFormat.of().formatHex(resumo);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Não foi possível calcular a impressão do corpo", e);
+        }
+    }
+
+    private byte[] serializar(Object valor) {
+        try {
+            return conversorJson.writeValueAsBytes(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível converter o resultado em JSON", e);
+        }
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("idempotencia.requisicoes")
+                .description("Requisições com Idempotency-Key, por resultado")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    private record Execucao(String impressao, CompletableFuture<byte[]> resultado) { }
+
+    /**
+     * Resultado da operação em JSON e se ele veio de uma requisição anterior com a mesma chave.
+     */
+    public record Resultado(byte[] json, boolean repetido) { }
+
+}
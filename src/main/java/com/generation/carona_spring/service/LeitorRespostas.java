@@ -0,0 +1,135 @@
+package com.generation.carona_spring.service;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.generation.carona_spring.records.Coordenadas;
+
+/**
+ * Leitura das respostas da OpenCage e da OSRM direto do fluxo de tokens (streaming),
+ * sem montar a árvore JSON nem copiar a resposta para uma String.
+ *
+ * Só os campos usados são lidos: results[0].geometry.lat/lng, routes[0].distance e,
+ * no serviço table da OSRM, a matriz distances.
+ * Os demais objetos e arrays (as anotações da OpenCage, os trechos da OSRM) são pulados
+ * com skipChildren(), e a leitura para assim que os valores são encontrados: o restante
+ * da resposta não é processado.
+ */
+final class LeitorRespostas {
+
+    @FunctionalInterface
+    interface Leitor<T> {
+        T ler(JsonParser parser) throws IOException;
+    }
+
+    private LeitorRespostas() { }
+
+    /**
+     * Coordenadas do primeiro resultado da OpenCage, ou null se não houver resultado.
+     */
+    static Coordenadas lerCoordenadas(JsonParser parser) throws IOException {
+        if (!entrarNoPrimeiro(parser, "results") || !avancarAte(parser, "geometry")
+                || parser.currentToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+
+        Double latitude = null;
+        Double longitude = null;
+
+        while ((latitude == null || longitude == null) && parser.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = parser.currentName();
+            parser.nextToken();
+
+            if ("lat".equals(campo)) {
+                latitude = parser.getValueAsDouble();
+            } else if ("lng".equals(campo)) {
+                longitude = parser.getValueAsDouble();
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return latitude != null && longitude != null ? new Coordenadas(latitude, longitude) : null;
+    }
+
+    /**
+     * Distância (metros) da primeira rota da OSRM, ou null se não houver rota.
+     */
+    static Double lerDistancia(JsonParser parser) throws IOException {
+        if (!entrarNoPrimeiro(parser, "routes") || !avancarAte(parser, "distance")
+                || !parser.currentToken().isNumeric()) {
+            return null;
+        }
+
+        return parser.getDoubleValue();
+    }
+
+    /**
+     * Matriz distances do serviço table da OSRM (metros; linha = origem, coluna = destino),
+     * ou null se ela não existir ou não tiver uma linha por origem. Valores ausentes ou não
+     * numéricos (null = sem rota entre os pontos) ficam null.
+     */
+    static Double[][] lerTabela(JsonParser parser, int origens, int destinos) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT || !avancarAte(parser, "distances")
+                || parser.currentToken() != JsonToken.START_ARRAY) {
+            return null;
+        }
+
+        Double[][] distancias = new Double[origens][destinos];
+        int linhas = 0;
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (linhas >= origens || parser.currentToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                linhas++;
+                continue;
+            }
+
+            int coluna = 0;
+
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (coluna < destinos && parser.currentToken().isNumeric()) {
+                    distancias[linhas][coluna] = parser.getDoubleValue();
+                } else {
+                    parser.skipChildren();
+                }
+                coluna++;
+            }
+
+            linhas++;
+        }
+
+        return linhas == origens ? distancias : null;
+    }
+
+    /**
+     * Posiciona o parser no primeiro objeto do array informado, na raiz da resposta.
+     */
+    private static boolean entrarNoPrimeiro(JsonParser parser, String array) throws IOException {
+        return parser.nextToken() == JsonToken.START_OBJECT
+                && avancarAte(parser, array)
+                && parser.currentToken() == JsonToken.START_ARRAY
+                && parser.nextToken() == JsonToken.START_OBJECT;
+    }
+
+    /**
+     * Avança pelos campos do objeto atual, pulando os valores dos demais, até o campo
+     * informado; o parser fica no valor dele. Retorna false ao chegar ao fim do objeto.
+     */
+    private static boolean avancarAte(JsonParser parser, String campo) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            boolean encontrado = campo.equals(parser.currentName());
+            parser.nextToken();
+
+            if (encontrado) {
+                return true;
+            }
+
+            parser.skipChildren();
+        }
+
+        return false;
+    }
+
+}
@@ -0,0 +1,373 @@
+package com.generation.carona_spring.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.generation.carona_spring.model.RecalculoTarifa;
+import com.generation.carona_spring.model.RecalculoTarifa.Status;
+import com.generation.carona_spring.repository.RecalculoTarifaRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Recalcula velocidade média, tempo estimado e valor das viagens futuras
+ * com a tabela de tarifas atual.
+ *
+ * Usa apenas a distância já gravada (sem chamadas às APIs externas). As viagens
+ * são lidas em lotes por id crescente (paginação por chave, sem OFFSET) e gravadas
+ * com batch update do JDBC. O checkpoint (último id do lote) é gravado na mesma
+ * transação do lote: se a execução for interrompida, a próxima continua de onde parou.
+ * Cada lote considera apenas as viagens que ainda não partiram: a data de corte é a
+ * maior entre a do início da execução e o momento da leitura, o que vale também para
+ * uma execução retomada horas depois.
+ * O valor das viagens com paradas é dividido de novo entre os passageiros na mesma
+ * transação. Depois de cada lote, a nova duração das viagens é registrada na AgendaVeiculos.
+ *
+ * Apenas uma execução por vez; todo o recálculo usa a mesma versão da tabela.
+ */
+@Service
+public class RecalculoTarifaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecalculoTarifaService.class);
+
+    private static final String SQL_LOTE =
+            "SELECT id, data_partida, distancia, latitude_partida, longitude_partida, "
+            + "latitude_destino, longitude_destino, veiculo_id FROM tb_viagens "
+            + "WHERE id > ? AND data_partida >= ? AND distancia IS NOT NULL ORDER BY id LIMIT ?";
+
+    private static final String SQL_ATUALIZAR_VIAGEM =
+            "UPDATE tb_viagens SET velocidade_media = ?, tempo_estimado = ?, valor = ? WHERE id = ?";
+
+    private static final String SQL_PARADAS =
+            "SELECT viagem_id, ordem, distancia FROM tb_viagens_paradas "
+            + "WHERE viagem_id BETWEEN ? AND ? ORDER BY viagem_id, ordem";
+
+    private static final String SQL_ATUALIZAR_PARADA =
+            "UPDATE tb_viagens_paradas SET valor = ? WHERE viagem_id = ? AND ordem = ?";
+
+    private static final String SQL_CHECKPOINT =
+            "UPDATE tb_recalculos_tarifa SET ultimo_id = ?, processadas = ?, atualizado_em = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RecalculoTarifaRepository recalculoTarifaRepository;
+    private final TarifaService tarifaService;
+    private final VelocidadeHistoricaService velocidadeHistoricaService;
+    private final AgendaVeiculos agendaVeiculos;
+    private final MeterRegistry meterRegistry;
+    private final int tamanhoLote;
+
+    private final Counter viagensRecalculadas;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("recalculo-tarifa").daemon().factory());
+    private final AtomicBoolean emExecucao = new AtomicBoolean();
+
+    public RecalculoTarifaService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  RecalculoTarifaRepository recalculoTarifaRepository, TarifaService tarifaService,
+                                  VelocidadeHistoricaService velocidadeHistoricaService, AgendaVeiculos agendaVeiculos,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${tarifa.recalculo.tamanho-lote:1000}") int tamanhoLote) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recalculoTarifaRepository = recalculoTarifaRepository;
+        this.tarifaService = tarifaService;
+        this.velocidadeHistoricaService = velocidadeHistoricaService;
+        this.agendaVeiculos = agendaVeiculos;
+        this.meterRegistry = meterRegistry;
+        this.tamanhoLote = tamanhoLote;
+        this.viagensRecalculadas = Counter.builder("tarifa.recalculo.viagens")
+                .description("Viagens recalculadas após mudança de tarifas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Inicia o recálculo em segundo plano e retorna a execução.
+     *
+     * Se a última execução não terminou e usa a mesma versão da tabela, ela é retomada
+     * a partir do checkpoint; caso contrário, uma nova execução começa do início.
+     */
+    public RecalculoTarifa iniciar() {
+        if (!emExecucao.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Já existe um recálculo em andamento!");
+        }
+
+        try {
+            TabelaTarifaria tabela = tarifaService.getTabela();
+            RecalculoTarifa recalculo = retomarOuCriar(tabela);
+            executor.execute(() -> executar(recalculo, tabela));
+            return recalculo;
+        } catch (RuntimeException e) {
+            emExecucao.set(false);
+            throw e;
+        }
+    }
+
+    public Optional<RecalculoTarifa> consultarUltimo() {
+        return recalculoTarifaRepository.findFirstByOrderByIdDesc();
+    }
+
+    /**
+     * Retoma, na inicialização, uma execução interrompida (ex.: reinício da aplicação).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void retomarInterrompido() {
+        consultarUltimo()
+                .filter(recalculo -> recalculo.getStatus() == Status.EM_ANDAMENTO)
+                .ifPresent(recalculo -> {
+                    logger.info("Retomando o recálculo de tarifas {} a partir do id {}",
+                            recalculo.getId(), recalculo.getUltimoId());
+                    iniciar();
+                });
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        // A interrupção é verificada entre os lotes; o status continua EM_ANDAMENTO para a retomada
+        executor.shutdownNow();
+    }
+
+    private RecalculoTarifa retomarOuCriar(TabelaTarifaria tabela) {
+        Optional<RecalculoTarifa> ultimo = consultarUltimo();
+
+        if (ultimo.isPresent() && ultimo.get().getStatus() != Status.CONCLUIDO) {
+            RecalculoTarifa anterior = ultimo.get();
+
+            if (anterior.getVersaoTarifa().equals(tabela.getVersao())) {
+                anterior.setStatus(Status.EM_ANDAMENTO);
+                anterior.setErro(null);
+                return recalculoTarifaRepository.save(anterior);
+            }
+
+            // Tabela mudou desde a execução anterior: todas as viagens precisam da nova versão
+            anterior.setStatus(Status.FALHOU);
+            anterior.setErro("Substituído por um recálculo com a tabela " + tabela.getVersao());
+            recalculoTarifaRepository.save(anterior);
+        }
+
+        RecalculoTarifa recalculo = new RecalculoTarifa();
+        recalculo.setVersaoTarifa(tabela.getVersao());
+        recalculo.setDataCorte(LocalDateTime.now());
+        recalculo.setStatus(Status.EM_ANDAMENTO);
+        recalculo.setIniciadoEm(Instant.now());
+        return recalculoTarifaRepository.save(recalculo);
+    }
+
+    private void executar(RecalculoTarifa recalculo, TabelaTarifaria tabela) {
+        long ultimoId = recalculo.getUltimoId();
+        long processadas = recalculo.getProcessadas();
+        LocalDateTime dataCorte = recalculo.getDataCorte();
+
+        logger.info("Recálculo de tarifas {} iniciado (tabela {}, a partir do id {})",
+                recalculo.getId(), tabela.getVersao(), ultimoId);
+
+        try {
+            Lote lote = new Lote(tamanhoLote);
+
+            while (!Thread.currentThread().isInterrupted()) {
+                lerLote(lote, ultimoId, dataCorte);
+
+                if (lote.quantidade == 0) {
+                    finalizar(recalculo, Status.CONCLUIDO, null);
+                    logger.info("Recálculo de tarifas {} concluído: {} viagens", recalculo.getId(), processadas);
+                    return;
+                }
+
+                ultimoId = lote.ids[lote.quantidade - 1];
+                processadas += lote.quantidade;
+                gravarLote(recalculo.getId(), lote, tabela, ultimoId, processadas);
+
+                recalculo.setUltimoId(ultimoId);
+                recalculo.setProcessadas(processadas);
+                viagensRecalculadas.increment(lote.quantidade);
+            }
+
+            logger.warn("Recálculo de tarifas {} interrompido no id {}", recalculo.getId(), ultimoId);
+        } catch (Exception e) {
+            logger.error("Recálculo de tarifas {} falhou no id {}: {}", recalculo.getId(), ultimoId, e.getMessage(), e);
+            finalizar(recalculo, Status.FALHOU, e.getMessage());
+        } finally {
+            emExecucao.set(false);
+        }
+    }
+
+    private void lerLote(Lote lote, long ultimoId, LocalDateTime dataCorte) {
+        lote.quantidade = 0;
+        LocalDateTime agora = LocalDateTime.now();
+        Timestamp corte = Timestamp.valueOf(agora.isAfter(dataCorte) ? agora : dataCorte);
+
+        jdbcTemplate.query(SQL_LOTE, resultado -> {
+            int i = lote.quantidade++;
+            lote.ids[i] = resultado.getLong(1);
+            lote.datasPartida[i] = resultado.getObject(2, LocalDateTime.class);
+            lote.distancias[i] = resultado.getDouble(3);
+            // Viagens sem coordenadas ficam com 0 e caem fora da região do histórico
+            lote.latitudesPartida[i] = resultado.getDouble(4);
+            lote.longitudesPartida[i] = resultado.getDouble(5);
+            lote.latitudesDestino[i] = resultado.getDouble(6);
+            lote.longitudesDestino[i] = resultado.getDouble(7);
+            // 0 = sem veículo (fora da agenda)
+            lote.veiculoIds[i] = resultado.getLong(8);
+        }, ultimoId, corte, tamanhoLote);
+    }
+
+    /**
+     * Grava as viagens do lote e o checkpoint em uma única transação.
+     */
+    private void gravarLote(Long recalculoId, Lote lote, TabelaTarifaria tabela, long ultimoId, long processadas) {
+        Timer.Sample amostra = Timer.start(meterRegistry);
+
+        for (int i = 0; i < lote.quantidade; i++) {
+            // Mesmas fórmulas do RotaService (etapas 3 a 5), com a versão fixa da tabela
+            lote.velocidades[i] = velocidadeHistoricaService.estimar(
+                    lote.latitudesPartida[i], lote.longitudesPartida[i],
+                    lote.latitudesDestino[i], lote.longitudesDestino[i],
+                    lote.datasPartida[i], tabela.velocidade(lote.datasPartida[i]));
+            lote.temposEstimados[i] = lote.distancias[i] / lote.velocidades[i] * 60;
+            double valor = tabela.valor(lote.distancias[i], lote.temposEstimados[i], lote.datasPartida[i]);
+            lote.valores[i] = BigDecimal.valueOf(valor).setScale(2, RoundingMode.HALF_UP);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(SQL_ATUALIZAR_VIAGEM, new BatchPreparedStatementSetter() {
+
+                @Override
+                public void setValues(PreparedStatement comando, int i) throws SQLException {
+                    comando.setDouble(1, lote.velocidades[i]);
+                    comando.setDouble(2, lote.temposEstimados[i]);
+                    comando.setBigDecimal(3, lote.valores[i]);
+                    comando.setLong(4, lote.ids[i]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return lote.quantidade;
+                }
+            });
+
+            dividirValorParadas(lote);
+            jdbcTemplate.update(SQL_CHECKPOINT, ultimoId, processadas, Timestamp.from(Instant.now()), recalculoId);
+        });
+
+        amostra.stop(meterRegistry.timer("tarifa.recalculo.lote"));
+
+        // Após o commit: a agenda só reflete durações já gravadas
+        for (int i = 0; i < lote.quantidade; i++) {
+            if (lote.veiculoIds[i] != 0) {
+                agendaVeiculos.atualizarDuracao(lote.ids[i], lote.veiculoIds[i], lote.datasPartida[i],
+                        lote.temposEstimados[i]);
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Recálculo de tarifas {}: {} viagens, último id {}", recalculoId, processadas, ultimoId);
+        }
+    }
+
+    /**
+     * Divide o novo valor de cada viagem do lote entre as suas paradas, pelas distâncias a
+     * bordo já gravadas (a mesma divisão do RotaService). As paradas do intervalo de ids
+     * do lote são lidas em uma única consulta; as de viagens fora do lote (já partiram)
+     * são ignoradas.
+     */
+    private void dividirValorParadas(Lote lote) {
+        Map<Long, Integer> posicoes = new HashMap<>(lote.quantidade * 2);
+        for (int i = 0; i < lote.quantidade; i++) {
+            posicoes.put(lote.ids[i], i);
+        }
+
+        // viagem -> paradas na ordem do trajeto, cada uma como { ordem, distância a bordo }
+        Map<Long, List<double[]>> paradasPorViagem = new HashMap<>();
+        jdbcTemplate.query(SQL_PARADAS, resultado -> {
+            long viagemId = resultado.getLong(1);
+
+            if (posicoes.containsKey(viagemId)) {
+                paradasPorViagem.computeIfAbsent(viagemId, id -> new ArrayList<>())
+                        .add(new double[] { resultado.getInt(2), resultado.getDouble(3) });
+            }
+        }, lote.ids[0], lote.ids[lote.quantidade - 1]);
+
+        List<Object[]> atualizacoes = new ArrayList<>();
+        paradasPorViagem.forEach((viagemId, paradas) -> {
+            double[] distanciasKm = paradas.stream().mapToDouble(parada -> parada[1]).toArray();
+            BigDecimal[] partes = RotaService.dividirValor(lote.valores[posicoes.get(viagemId)], distanciasKm);
+
+            for (int i = 0; i < partes.length; i++) {
+                atualizacoes.add(new Object[] { partes[i], viagemId, (int) paradas.get(i)[0] });
+            }
+        });
+
+        if (!atualizacoes.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_ATUALIZAR_PARADA, atualizacoes);
+        }
+    }
+
+    private void finalizar(RecalculoTarifa recalculo, Status status, String erro) {
+        recalculo.setStatus(status);
+        recalculo.setErro(erro == null || erro.length() <= 255 ? erro : erro.substring(0, 255));
+        recalculo.setAtualizadoEm(Instant.now());
+        recalculoTarifaRepository.save(recalculo);
+    }
+
+    /**
+     * Viagens de um lote em arrays reaproveitados entre os lotes (sem uma entidade por linha).
+     */
+    private static final class Lote {
+
+        final long[] ids;
+        final LocalDateTime[] datasPartida;
+        final double[] distancias;
+        final double[] latitudesPartida;
+        final double[] longitudesPartida;
+        final double[] latitudesDestino;
+        final double[] longitudesDestino;
+        final long[] veiculoIds;
+        final double[] velocidades;
+        final double[] temposEstimados;
+        final BigDecimal[] valores;
+        int quantidade;
+
+        Lote(int tamanho) {
+            this.ids = new long[tamanho];
+            this.datasPartida = new LocalDateTime[tamanho];
+            this.distancias = new double[tamanho];
+            this.latitudesPartida = new double[tamanho];
+            this.longitudesPartida = new double[tamanho];
+            this.latitudesDestino = new double[tamanho];
+            this.longitudesDestino = new double[tamanho];
+            this.veiculoIds = new long[tamanho];
+            this.velocidades = new double[tamanho];
+            this.temposEstimados = new double[tamanho];
+            this.valores = new BigDecimal[tamanho];
+        }
+    }
+
+}
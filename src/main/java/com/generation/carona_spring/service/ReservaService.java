@@ -0,0 +1,125 @@
+package com.generation.carona_spring.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.generation.carona_spring.model.Reserva;
+import com.generation.carona_spring.model.Usuario;
+import com.generation.carona_spring.model.Viagem;
+import com.generation.carona_spring.repository.ReservaRepository;
+import com.generation.carona_spring.repository.UsuarioRepository;
+import com.generation.carona_spring.repository.ViagemRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Reservas de lugares nas viagens.
+ *
+ * As vagas são descontadas por um update condicional (vagas_disponiveis >= lugares)
+ * em vez de ler, verificar e gravar: sob concorrência, cada reserva é aceita ou
+ * recusada pelo próprio banco, sem SELECT ... FOR UPDATE e sem exceder a capacidade.
+ * O bloqueio da linha dura apenas até o fim da transação, que não faz chamadas externas.
+ *
+ * Reservar e cancelar alteram primeiro a viagem e depois a reserva: a mesma ordem
+ * de bloqueio nas duas operações evita deadlocks entre elas.
+ */
+@Service
+public class ReservaService {
+
+    private final ReservaRepository reservaRepository;
+    private final ViagemRepository viagemRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final MeterRegistry meterRegistry;
+
+    public ReservaService(ReservaRepository reservaRepository, ViagemRepository viagemRepository,
+                          UsuarioRepository usuarioRepository, MeterRegistry meterRegistry) {
+        this.reservaRepository = reservaRepository;
+        this.viagemRepository = viagemRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public List<Reserva> listar(Long viagemId) {
+        if (!viagemRepository.existsById(viagemId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Viagem não encontrada!");
+        }
+
+        return reservaRepository.findAllByViagem_IdOrderById(viagemId);
+    }
+
+    @Transactional
+    public Reserva reservar(Long viagemId, String login, int lugares) {
+        Usuario usuario = buscarUsuario(login);
+        Viagem viagem = viagemRepository.findById(viagemId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Viagem não encontrada!"));
+
+        if (viagem.getVagas() == null) {
+            throw recusar("sem_vagas", HttpStatus.CONFLICT, "Viagem sem vagas cadastradas!");
+        }
+
+        if (!viagem.getDataPartida().isAfter(LocalDateTime.now())) {
+            throw recusar("encerrada", HttpStatus.BAD_REQUEST, "A viagem já partiu!");
+        }
+
+        if (viagem.getUsuario() != null && viagem.getUsuario().getId().equals(usuario.getId())) {
+            throw recusar("invalida", HttpStatus.BAD_REQUEST, "O motorista não pode reservar a própria viagem!");
+        }
+
+        if (reservaRepository.existsByViagem_IdAndUsuario_Id(viagemId, usuario.getId())) {
+            throw recusar("duplicada", HttpStatus.CONFLICT, "Você já tem uma reserva nesta viagem!");
+        }
+
+        if (viagemRepository.ocuparVagas(viagemId, lugares) == 0) {
+            throw recusar("sem_vagas", HttpStatus.CONFLICT, "Vagas insuficientes!");
+        }
+
+        Reserva reserva = new Reserva();
+        reserva.setViagem(viagem);
+        reserva.setUsuario(usuario);
+        reserva.setLugares(lugares);
+        reserva.setCriadaEm(Instant.now());
+
+        try {
+            reserva = reservaRepository.saveAndFlush(reserva);
+        } catch (DataIntegrityViolationException e) {
+            // Reserva simultânea do mesmo usuário: a transação é desfeita e as vagas voltam
+            throw recusar("duplicada", HttpStatus.CONFLICT, "Você já tem uma reserva nesta viagem!");
+        }
+
+        meterRegistry.counter("viagem.reservas", "resultado", "confirmada").increment();
+        return reserva;
+    }
+
+    @Transactional
+    public void cancelar(Long viagemId, String login) {
+        Usuario usuario = buscarUsuario(login);
+        Reserva reserva = reservaRepository.findByViagem_IdAndUsuario_Id(viagemId, usuario.getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Reserva não encontrada!"));
+
+        if (viagemRepository.liberarVagas(viagemId, reserva.getLugares()) == 0
+                || reservaRepository.excluir(reserva.getId()) == 0) {
+            // Cancelada (ou viagem excluída) por outra requisição; as vagas liberadas são desfeitas
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reserva não encontrada!");
+        }
+
+        meterRegistry.counter("viagem.reservas", "resultado", "cancelada").increment();
+    }
+
+    private Usuario buscarUsuario(String login) {
+        return usuarioRepository.findByUsuario(login)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Usuário não encontrado!"));
+    }
+
+    private ResponseStatusException recusar(String motivo, HttpStatus status, String mensagem) {
+        meterRegistry.counter("viagem.reservas", "resultado", motivo).increment();
+        return new ResponseStatusException(status, mensagem);
+    }
+
+}
@@ -0,0 +1,287 @@
+package com.generation.carona_spring.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.generation.carona_spring.records.Coordenadas;
+import com.generation.carona_spring.records.Cotacao;
+import com.generation.carona_spring.records.PrecoViagem;
+import com.generation.carona_spring.records.Trajeto;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.handler.timeout.ReadTimeoutException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.retry.Retry;
+
+/**
+ * Cotação de rota sem bloquear threads: as chamadas à OpenCage e à OSRM são feitas
+ * pelo WebClient (Reactor Netty) e a thread da requisição é liberada enquanto elas
+ * não respondem. A pausa entre chamadas (rota.pausa-ms) vira um atraso agendado em vez
+ * de Thread.sleep.
+ *
+ * Usa os mesmos caches, URLs e precificação do RotaService. Geocodificações do mesmo
+ * endereço em andamento são compartilhadas: só a primeira vai à OpenCage.
+ *
+ * Limites:
+ * - cada chamada externa tem timeout de resposta (WebClientConfig) e até
+ *   rota.reativo.tentativas novas tentativas, com espera exponencial, apenas para falhas
+ *   temporárias (5xx, 429, timeout e erros de conexão);
+ * - a cotação inteira tem timeout total (504 ao esgotar);
+ * - acima de rota.reativo.max-em-andamento cotações simultâneas, novas cotações são
+ *   recusadas com 503 na hora. Também recebem 503, sem nova tentativa, as chamadas que
+ *   não conseguem conexão do pool (fila cheia ou espera esgotada): repetir só aumentaria a fila.
+ */
+@Service
+public class RotaReativaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RotaReativaService.class);
+
+    private static final String METRICA_COTACAO = "rota.reativo.cotacao";
+    private static final String METRICA_HTTP = "rota.http.cliente";
+    private static final String PROVEDOR_OPENCAGE = "opencage";
+    private static final String PROVEDOR_OSRM = "osrm";
+    private static final Set<String> ERROS_POOL_ESGOTADO =
+            Set.of("PoolAcquirePendingLimitException", "PoolAcquireTimeoutException");
+
+    private final WebClient webClient;
+    private final RotaService rotaService;
+    private final JsonFactory fabricaJson;
+    private final MeterRegistry meterRegistry;
+
+    private final Duration timeoutTotal;
+    private final int tentativas;
+    private final Duration esperaInicial;
+    private final int maxEmAndamento;
+
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private final Map<String, Mono<Coordenadas>> geocodificacoesEmAndamento = new ConcurrentHashMap<>();
+
+    private final Counter recusadas;
+    private final Counter novasTentativas;
+
+    public RotaReativaService(WebClient webClientRotas, RotaService rotaService, ObjectMapper conversorJson,
+                              MeterRegistry meterRegistry,
+                              @Value("${rota.reativo.timeout-total-ms:10000}") long timeoutTotalMs,
+                              @Value("${rota.reativo.tentativas:2}") int tentativas,
+                              @Value("${rota.reativo.espera-inicial-ms:100}") long esperaInicialMs,
+                              @Value("${rota.reativo.max-em-andamento:5000}") int maxEmAndamento) {
+        this.webClient = webClientRotas;
+        this.rotaService = rotaService;
+        this.fabricaJson = conversorJson.getFactory();
+        this.meterRegistry = meterRegistry;
+        this.timeoutTotal = Duration.ofMillis(timeoutTotalMs);
+        this.tentativas = tentativas;
+        this.esperaInicial = Duration.ofMillis(esperaInicialMs);
+        this.maxEmAndamento = maxEmAndamento;
+
+        this.recusadas = Counter.builder("rota.reativo.recusadas")
+                .description("Cotações recusadas por excesso de cotações em andamento")
+                .register(meterRegistry);
+        this.novasTentativas = Counter.builder("rota.reativo.tentativas")
+                .description("Novas tentativas de chamadas às APIs externas após falhas temporárias")
+                .register(meterRegistry);
+        meterRegistry.gauge("rota.reativo.em_andamento", emAndamento);
+    }
+
+    /**
+     * Cota um trajeto para várias datas de partida, como o RotaService.cotar, sem bloquear.
+     * As duas geocodificações são feitas em paralelo.
+     */
+    public Mono<Cotacao> cotar(String partida, String destino, List<LocalDateTime> datasPartida) {
+        return Mono.defer(() -> {
+            if (emAndamento.incrementAndGet() > maxEmAndamento) {
+                emAndamento.decrementAndGet();
+                recusadas.increment();
+                return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Muitas cotações em andamento, tente novamente"));
+            }
+
+            Timer.Sample amostra = Timer.start(meterRegistry);
+
+            return Mono.zip(buscarCoordenadas(partida), buscarCoordenadas(destino))
+                    .flatMap(pontos -> calcularDistancia(pontos.getT1(), pontos.getT2())
+                            .map(distanciaKm -> new Trajeto(pontos.getT1(), pontos.getT2(), distanciaKm)))
+                    .map(trajeto -> precificar(partida, destino, trajeto, datasPartida))
+                    .timeout(timeoutTotal)
+                    .onErrorMap(erro -> !(erro instanceof ResponseStatusException), this::traduzirErro)
+                    .doFinally(sinal -> {
+                        emAndamento.decrementAndGet();
+                        amostra.stop(meterRegistry.timer(METRICA_COTACAO, "resultado", resultado(sinal)));
+                    });
+        });
+    }
+
+    private Cotacao precificar(String partida, String destino, Trajeto trajeto, List<LocalDateTime> datasPartida) {
+        List<PrecoViagem> precos = datasPartida.stream()
+                .map(dataPartida -> rotaService.precificar(trajeto, dataPartida))
+                .toList();
+
+        return new Cotacao(partida, destino, trajeto.distanciaKm(), precos);
+    }
+
+    private Mono<Coordenadas> buscarCoordenadas(String endereco) {
+        Coordenadas emCache = rotaService.coordenadasEmCache(endereco);
+
+        if (emCache != null) {
+            return Mono.just(emCache);
+        }
+
+        // A URL identifica o endereço já preparado: pedidos iguais em andamento esperam a mesma resposta
+        String url = rotaService.urlGeocodificacao(endereco);
+
+        return geocodificacoesEmAndamento.computeIfAbsent(url, chave -> consultar(chave, PROVEDOR_OPENCAGE,
+                        LeitorRespostas::lerCoordenadas)
+                .switchIfEmpty(Mono.error(() -> naoEncontrado("Endereço não encontrado: " + endereco)))
+                .doOnNext(coordenadas -> rotaService.guardarCoordenadas(endereco, coordenadas))
+                .doFinally(sinal -> geocodificacoesEmAndamento.remove(chave))
+                .cache());
+    }
+
+    private Mono<Double> calcularDistancia(Coordenadas partida, Coordenadas destino) {
+        Double emCache = rotaService.distanciaEmCache(partida, destino);
+
+        if (emCache != null) {
+            return Mono.just(emCache);
+        }
+
+        return consultar(rotaService.urlRota(partida, destino), PROVEDOR_OSRM, LeitorRespostas::lerDistancia)
+                .switchIfEmpty(Mono.error(() -> naoEncontrado("Rota não encontrada")))
+                // Converter de metros para quilômetros
+                .map(distanciaMetros -> distanciaMetros / 1000.0)
+                .doOnNext(distanciaKm -> rotaService.guardarDistancia(partida, destino, distanciaKm));
+    }
+
+    private static ResponseStatusException naoEncontrado(String mensagem) {
+        logger.error(mensagem);
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, mensagem);
+    }
+
+    /**
+     * GET na API externa, com a pausa configurada antes da chamada e novas tentativas para
+     * falhas temporárias. O tempo de cada tentativa é registrado por provedor e status HTTP,
+     * como no RotaService. A resposta é lida em bytes pelo LeitorRespostas, sem String nem
+     * árvore JSON; vazio se o leitor não encontrar o valor.
+     */
+    private <T> Mono<T> consultar(String url, String provedor, LeitorRespostas.Leitor<T> leitor) {
+        Mono<byte[]> tentativa = Mono.defer(() -> {
+            Timer.Sample amostra = Timer.start(meterRegistry);
+
+            return webClient.get()
+                    .uri(url)
+                    .retrieve()
+                    .toEntity(byte[].class)
+                    .doOnNext(resposta -> registrarChamada(amostra, provedor,
+                            String.valueOf(resposta.getStatusCode().value())))
+                    .doOnError(erro -> {
+                        registrarChamada(amostra, provedor, status(erro));
+                        logger.debug("Falha na chamada à API {}: {}", provedor, erro.toString());
+                    })
+                    .mapNotNull(resposta -> resposta.getBody());
+        });
+
+        long pausaMs = rotaService.pausaMs();
+        if (pausaMs > 0) {
+            tentativa = tentativa.delaySubscription(Duration.ofMillis(pausaMs));
+        }
+
+        return tentativa
+                .retryWhen(Retry.backoff(tentativas, esperaInicial)
+                        .filter(RotaReativaService::temporaria)
+                        .doBeforeRetry(sinal -> novasTentativas.increment())
+                        .onRetryExhaustedThrow((especificacao, sinal) -> sinal.failure()))
+                .mapNotNull(corpo -> ler(corpo, provedor, leitor));
+    }
+
+    private <T> T ler(byte[] corpo, String provedor, LeitorRespostas.Leitor<T> leitor) {
+        try (JsonParser parser = fabricaJson.createParser(corpo)) {
+            return leitor.ler(parser);
+        } catch (IOException e) {
+            logger.error("Resposta inválida da API {}: {}", provedor, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Erro ao calcular a rota", e);
+        }
+    }
+
+    private void registrarChamada(Timer.Sample amostra, String provedor, String status) {
+        amostra.stop(meterRegistry.timer(METRICA_HTTP, "provedor", provedor, "status", status));
+    }
+
+    private static String status(Throwable erro) {
+        return erro instanceof WebClientResponseException resposta
+                ? String.valueOf(resposta.getStatusCode().value())
+                : "IO_ERROR";
+    }
+
+    /**
+     * Falhas que podem passar numa nova tentativa. Falta de conexão no pool não entra.
+     */
+    private static boolean temporaria(Throwable erro) {
+        if (erro instanceof WebClientResponseException resposta) {
+            return resposta.getStatusCode().is5xxServerError()
+                    || resposta.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+
+        return erro instanceof WebClientRequestException && !semConexao(erro);
+    }
+
+    /**
+     * Pool de conexões esgotado (fila de espera cheia ou espera esgotada). As exceções do
+     * pool ficam num pacote interno do Reactor Netty, que muda de nome entre versões;
+     * por isso são reconhecidas pelo nome simples da classe, em qualquer ponto da cadeia.
+     */
+    private static boolean semConexao(Throwable erro) {
+        for (Throwable causa = erro; causa != null; causa = causa.getCause()) {
+            if (ERROS_POOL_ESGOTADO.contains(causa.getClass().getSimpleName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ResponseStatusException traduzirErro(Throwable erro) {
+        if (erro instanceof TimeoutException || erro.getCause() instanceof ReadTimeoutException) {
+            logger.error("Tempo esgotado ao calcular rota: {}", erro.getMessage());
+            return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Tempo esgotado ao calcular a rota", erro);
+        }
+
+        if (semConexao(erro)) {
+            recusadas.increment();
+            return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Muitas cotações em andamento, tente novamente", erro);
+        }
+
+        logger.error("Erro inesperado ao calcular rota: {}", erro.getMessage(), erro);
+        return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Erro ao calcular a rota", erro);
+    }
+
+    private static String resultado(SignalType sinal) {
+        return switch (sinal) {
+            case ON_COMPLETE -> "sucesso";
+            case CANCEL -> "cancelada";
+            default -> "erro";
+        };
+    }
+
+}
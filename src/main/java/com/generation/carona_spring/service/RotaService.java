@@ -2,66 +2,146 @@ package com.generation.carona_spring.service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.generation.carona_spring.model.Parada;
 import com.generation.carona_spring.model.Viagem;
 import com.generation.carona_spring.records.Coordenadas;
+import com.generation.carona_spring.records.Cotacao;
+import com.generation.carona_spring.records.ParCoordenadas;
+import com.generation.carona_spring.records.PrecoViagem;
+import com.generation.carona_spring.records.Trajeto;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import io.github.cdimascio.dotenv.Dotenv;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Service
 public class RotaService {
 
+    // Os logs do cálculo são DEBUG e protegidos por isDebugEnabled(): em produção,
+    // não há custo de formatação nem de boxing dos valores double por requisição
     private static final Logger logger = LoggerFactory.getLogger(RotaService.class);
-    private static final Dotenv dotenv = Dotenv.load();
+    
+    private static final Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
     
     private final RestTemplate clienteHttp;
-    private final ObjectMapper conversorJson;
+    private final JsonFactory fabricaJson;
 
-    // URLs das APIs externas
-    private static final String URL_OPENCAGE = "https://api.opencagedata.com/geocode/v1/json?q=%s&key=%s&language=pt&format=json";
-    private static final String URL_OSRM = "http://router.project-osrm.org/route/v1/driving/%.6f,%.6f;%.6f,%.6f?overview=false";
+    // Caminhos das APIs externas (o endereço base vem do application.properties)
+    private static final String URL_OPENCAGE = "%s/geocode/v1/json?q=%s&key=%s&language=pt&format=json";
+    private static final String URL_OSRM = "%s/route/v1/driving/%.6f,%.6f;%.6f,%.6f?overview=false";
+    private static final String URL_OSRM_TABELA = "%s/table/v1/driving/%s?annotations=distance";
     private static final String CHAVE_API = dotenv.get("API_KEY");
 
-    // Horários de pico no trânsito
-    private static final LocalTime INICIO_PICO_MANHA = LocalTime.of(6, 0);   // 06:00
-    private static final LocalTime FIM_PICO_MANHA = LocalTime.of(9, 0);      // 09:00
-    private static final LocalTime INICIO_PICO_TARDE = LocalTime.of(16, 0);  // 16:00
-    private static final LocalTime FIM_PICO_TARDE = LocalTime.of(19, 0);     // 19:00
-
-    // Velocidades médias em km/h para cada período
-    private static final double VELOCIDADE_NORMAL = 50.0;
-    private static final double VELOCIDADE_PICO_MANHA = 30.0;
-    private static final double VELOCIDADE_PICO_TARDE = 35.0;
-    private static final double VELOCIDADE_FIM_DE_SEMANA = 60.0;
-
-    // Valores para cálculo do preço da viagem
-    private static final double TARIFA_BASE = 5.00;        // Valor fixo inicial
-    private static final double VALOR_POR_KM = 1.50;       // Preço por quilômetro
-    private static final double VALOR_POR_MINUTO = 0.50;   // Preço por minuto
-    private static final double VALOR_SEGURO = 2.00;       // Taxa de seguro
-
-    public RotaService(RestTemplate clienteHttp, ObjectMapper conversorJson) {
+    // Regex para remover vírgula ou espaço seguido de números no final (compilada uma única vez)
+    private static final Pattern PADRAO_NUMERO_FINAL = Pattern.compile("(.*?)[,\\s]+\\d+$");
+
+    private final String urlBaseOpenCage;
+    private final String urlBaseOsrm;
+    private final long pausaMs;
+
+    // Métricas (Micrometer), expostas em /actuator/prometheus
+    private static final String METRICA_CALCULO = "rota.calculo";
+    private static final String METRICA_COTACAO = "rota.cotacao";
+    // Etapas locais e remotas usam só a tag etapa; o provedor fica nas métricas próprias
+    private static final String METRICA_ETAPA = "rota.etapa";
+    private static final String METRICA_HTTP = "rota.http.cliente";
+    private static final String PROVEDOR_OPENCAGE = "opencage";
+    private static final String PROVEDOR_OSRM = "osrm";
+
+    private final MeterRegistry meterRegistry;
+    private final Counter enderecosNaoEncontrados;
+
+    // Velocidades e preços vêm da tabela de tarifas (tarifas.json), recarregável sem reinício
+    private final TarifaService tarifaService;
+
+    // Velocidade aprendida com as viagens concluídas (por região e horário), com a tabela como base
+    private final VelocidadeHistoricaService velocidadeHistoricaService;
+
+    // Caches das APIs externas: endereço -> coordenadas e par de coordenadas -> distância (km).
+    // Um acerto evita a chamada HTTP e a pausa entre requisições. Guardam a consulta em andamento
+    // (CompletableFuture), para que buscas simultâneas da mesma chave esperem por ela fora do mapa
+    private final AsyncCache<String, Coordenadas> cacheCoordenadas;
+    private final AsyncCache<String, Double> cacheDistancias;
+    private final Counter acertosCoordenadas;
+    private final Counter falhasCoordenadas;
+    private final Counter acertosDistancias;
+    private final Counter falhasDistancias;
+
+    // Distâncias pedidas ao mesmo tempo são resolvidas em uma chamada à OSRM (null = desligado)
+    private final AgrupadorDistancias agrupadorDistancias;
+    private final DistributionSummary paresPorChamada;
+
+    public RotaService(RestTemplate clienteHttp, ObjectMapper conversorJson, MeterRegistry meterRegistry,
+                       TarifaService tarifaService, VelocidadeHistoricaService velocidadeHistoricaService,
+                       @Value("${rota.opencage.url-base:https://api.opencagedata.com}") String urlBaseOpenCage,
+                       @Value("${rota.osrm.url-base:http://router.project-osrm.org}") String urlBaseOsrm,
+                       @Value("${rota.pausa-ms:2000}") long pausaMs,
+                       @Value("${rota.cache.tamanho-maximo:10000}") long tamanhoMaximoCache,
+                       @Value("${rota.cache.expiracao-minutos:1440}") long expiracaoCacheMinutos,
+                       @Value("${rota.distancias.janela-ms:0}") long janelaDistanciasMs,
+                       @Value("${rota.distancias.tamanho-lote:50}") int tamanhoLoteDistancias) {
         this.clienteHttp = clienteHttp;
-        this.conversorJson = conversorJson;
+        this.fabricaJson = conversorJson.getFactory();
+        this.meterRegistry = meterRegistry;
+        this.tarifaService = tarifaService;
+        this.velocidadeHistoricaService = velocidadeHistoricaService;
+        this.urlBaseOpenCage = urlBaseOpenCage;
+        this.urlBaseOsrm = urlBaseOsrm;
+        this.pausaMs = pausaMs;
+        this.enderecosNaoEncontrados = Counter.builder("rota.enderecos.nao_encontrados")
+                .description("Endereços sem resultado na geocodificação")
+                .register(meterRegistry);
+
+        this.cacheCoordenadas = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoCache)
+                .expireAfterWrite(Duration.ofMinutes(expiracaoCacheMinutos))
+                .buildAsync();
+        this.cacheDistancias = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoCache)
+                .expireAfterWrite(Duration.ofMinutes(expiracaoCacheMinutos))
+                .buildAsync();
+        this.acertosCoordenadas = contadorCache("geocodificacao", "acerto");
+        this.falhasCoordenadas = contadorCache("geocodificacao", "falha");
+        this.acertosDistancias = contadorCache("distancia", "acerto");
+        this.falhasDistancias = contadorCache("distancia", "falha");
+
+        this.agrupadorDistancias = janelaDistanciasMs > 0
+                ? new AgrupadorDistancias(this::resolverLoteDistancias, janelaDistanciasMs, tamanhoLoteDistancias)
+                : null;
+        this.paresPorChamada = DistributionSummary.builder("rota.distancias.pares")
+                .description("Pares origem/destino resolvidos por chamada à OSRM")
+                .register(meterRegistry);
     }
 
     /**
@@ -75,48 +155,380 @@ public class RotaService {
      * 5. Calcula o valor da viagem
      */
     public void calcularRota(Viagem viagem) {
-        try {
-            logger.info("Calculando rota de '{}' para '{}'", viagem.getPartida(), viagem.getDestino());
+        executarCalculo(METRICA_CALCULO, () -> {
+            logger.debug("Calculando rota de '{}' para '{}'", viagem.getPartida(), viagem.getDestino());
+
+            // Etapas 1 e 2: coordenadas e distância (passando pelas paradas, se houver)
+            List<Parada> paradas = viagem.getParadas();
+            boolean comParadas = paradas != null && !paradas.isEmpty();
+            Trajeto trajeto = comParadas
+                    ? calcularTrajetoComParadas(viagem.getPartida(), viagem.getDestino(), paradas)
+                    : calcularTrajeto(viagem.getPartida(), viagem.getDestino());
+
+            return preencher(viagem, trajeto);
+        });
+    }
+
+    /**
+     * Grava na viagem as coordenadas e a distância do trajeto e executa as etapas
+     * 3 a 5 (velocidade, tempo e valor), dividindo o valor entre as paradas, se houver.
+     */
+    private Viagem preencher(Viagem viagem, Trajeto trajeto) {
+        // Salvar coordenadas e distância na viagem
+        viagem.setLatitudePartida(trajeto.partida().latitude());
+        viagem.setLongitudePartida(trajeto.partida().longitude());
+        viagem.setLatitudeDestino(trajeto.destino().latitude());
+        viagem.setLongitudeDestino(trajeto.destino().longitude());
+        viagem.setDistancia(trajeto.distanciaKm());
+
+        // Etapas 3 a 5: velocidade, tempo e valor
+        PrecoViagem preco = precificar(trajeto, viagem.getDataPartida());
+        viagem.setVelocidadeMedia(preco.velocidadeMedia());
+        viagem.setTempoEstimado(preco.tempoEstimado());
+        viagem.setValor(preco.valor());
+
+        if (viagem.getParadas() != null && !viagem.getParadas().isEmpty()) {
+            dividirValor(viagem.getParadas(), preco.valor());
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Rota calculada com sucesso: {}km, {}min, R$ {}", 
+                       trajeto.distanciaKm(), preco.tempoEstimado(), preco.valor());
+        }
+
+        return viagem;
+    }
+
+    /**
+     * Cota um trajeto para várias datas de partida, sem gravar nada.
+     * 
+     * As coordenadas e a distância são calculadas uma única vez (etapas 1 e 2);
+     * apenas as etapas 3 a 5 são repetidas para cada data.
+     */
+    public Cotacao cotar(String partida, String destino, List<LocalDateTime> datasPartida) {
+        return executarCalculo(METRICA_COTACAO, () -> {
+            Trajeto trajeto = calcularTrajeto(partida, destino);
+            List<PrecoViagem> precos = new ArrayList<>(datasPartida.size());
+
+            for (LocalDateTime dataPartida : datasPartida) {
+                precos.add(precificar(trajeto, dataPartida));
+            }
+
+            return new Cotacao(partida, destino, trajeto.distanciaKm(), precos);
+        });
+    }
+
+    /**
+     * Etapas 1 e 2: coordenadas da partida e do destino e a distância entre elas.
+     */
+    private Trajeto calcularTrajeto(String partida, String destino) {
+        Coordenadas coordenadasPartida = medirEtapa("geocodificacao", () -> buscarCoordenadasComCache(partida));
+        Coordenadas coordenadasDestino = medirEtapa("geocodificacao", () -> buscarCoordenadasComCache(destino));
+        double distanciaKm = medirEtapa("distancia",
+                () -> calcularDistanciaComCache(coordenadasPartida, coordenadasDestino));
+
+        return new Trajeto(coordenadasPartida, coordenadasDestino, distanciaKm);
+    }
+
+    /**
+     * Etapas 1 e 2 para uma viagem com paradas: coordenadas de todos os pontos, matriz de
+     * distâncias entre eles (uma única chamada à OSRM) e a ordem das paradas que reduz a
+     * distância total. A lista de paradas é reordenada e cada parada recebe as coordenadas
+     * e a distância a bordo (até o destino). A distância do trajeto é a do percurso completo.
+     */
+    private Trajeto calcularTrajetoComParadas(String partida, String destino, List<Parada> paradas) {
+        List<Coordenadas> pontos = new ArrayList<>(paradas.size() + 2);
+        pontos.add(medirEtapa("geocodificacao", () -> buscarCoordenadasComCache(partida)));
+        for (Parada parada : paradas) {
+            pontos.add(medirEtapa("geocodificacao", () -> buscarCoordenadasComCache(parada.getEndereco())));
+        }
+        pontos.add(medirEtapa("geocodificacao", () -> buscarCoordenadasComCache(destino)));
+
+        double[][] distancias = medirEtapa("matriz", () -> buscarMatrizDistancias(pontos));
+        int[] rota = medirEtapa("ordenacao", () -> RoteirizadorParadas.ordenar(distancias));
 
-            // Etapa 1: Buscar coordenadas geográficas
-            Coordenadas coordenadasPartida = buscarCoordenadas(viagem.getPartida());
-            Coordenadas coordenadasDestino = buscarCoordenadas(viagem.getDestino());
+        // Percorre a rota do destino para a partida acumulando a distância até o destino
+        List<Parada> ordenadas = new ArrayList<>(paradas.size());
+        double aBordo = 0;
 
-            // Salvar coordenadas na viagem
-            viagem.setLatitudePartida(coordenadasPartida.latitude());
-            viagem.setLongitudePartida(coordenadasPartida.longitude());
-            viagem.setLatitudeDestino(coordenadasDestino.latitude());
-            viagem.setLongitudeDestino(coordenadasDestino.longitude());
+        for (int posicao = rota.length - 2; posicao >= 1; posicao--) {
+            aBordo += distancias[rota[posicao]][rota[posicao + 1]];
 
-            // Etapa 2: Calcular distância em quilômetros
-            double distanciaKm = calcularDistancia(coordenadasPartida, coordenadasDestino);
-            viagem.setDistancia(distanciaKm);
+            Parada parada = paradas.get(rota[posicao] - 1);
+            Coordenadas coordenadas = pontos.get(rota[posicao]);
+            parada.setLatitude(coordenadas.latitude());
+            parada.setLongitude(coordenadas.longitude());
+            parada.setDistancia(aBordo);
+            ordenadas.add(0, parada);
+        }
 
-            // Etapa 3: Definir velocidade média baseada no horário
-            double velocidadeMedia = definirVelocidadeMedia(viagem.getDataPartida());
-            viagem.setVelocidadeMedia(velocidadeMedia);
+        paradas.clear();
+        paradas.addAll(ordenadas);
 
-            // Etapa 4: Calcular tempo estimado em minutos
-            double tempoMinutos = calcularTempoViagem(distanciaKm, velocidadeMedia);
-            viagem.setTempoEstimado(tempoMinutos);
+        return new Trajeto(pontos.get(0), pontos.get(pontos.size() - 1),
+                RoteirizadorParadas.distanciaTotal(rota, distancias));
+    }
 
-            // Etapa 5: Calcular valor total da viagem
-            double valorTotal = calcularValorViagem(distanciaKm, tempoMinutos);
-            viagem.setValor(BigDecimal.valueOf(valorTotal).setScale(2, RoundingMode.HALF_UP));
+    private void dividirValor(List<Parada> paradas, BigDecimal valorTotal) {
+        double[] distancias = new double[paradas.size()];
+        for (int i = 0; i < distancias.length; i++) {
+            distancias[i] = paradas.get(i).getDistancia();
+        }
 
-            logger.info("Rota calculada com sucesso: {}km, {}min, R$ {}", 
-                       distanciaKm, tempoMinutos, valorTotal);
+        BigDecimal[] partes = dividirValor(valorTotal, distancias);
+        for (int i = 0; i < partes.length; i++) {
+            paradas.get(i).setValor(partes[i]);
+        }
+    }
+
+    /**
+     * Divide o valor da viagem entre os passageiros, proporcionalmente à distância que
+     * cada um percorre (sem distâncias, em partes iguais). Cada parte recebe os centavos
+     * inteiros da sua fração, e os centavos que sobram vão para as maiores frações
+     * (maiores restos): a soma das partes é exatamente o valor da viagem e nenhuma parte
+     * fica negativa. Também usado pelo RecalculoTarifaService.
+     */
+    static BigDecimal[] dividirValor(BigDecimal valorTotal, double[] distanciasKm) {
+        int quantidade = distanciasKm.length;
+        long centavos = valorTotal.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+
+        // Pesos em metros, em aritmética inteira: sem erro de arredondamento na divisão
+        long[] pesos = new long[quantidade];
+        long pesoTotal = 0;
+        for (int i = 0; i < quantidade; i++) {
+            pesos[i] = Math.max(0, Math.round(distanciasKm[i] * 1000));
+            pesoTotal += pesos[i];
+        }
+        if (pesoTotal == 0) {
+            Arrays.fill(pesos, 1);
+            pesoTotal = quantidade;
+        }
+
+        long[] partes = new long[quantidade];
+        long[] restos = new long[quantidade];
+        long distribuidos = 0;
+        for (int i = 0; i < quantidade; i++) {
+            long produto = Math.multiplyExact(centavos, pesos[i]);
+            partes[i] = produto / pesoTotal;
+            restos[i] = produto % pesoTotal;
+            distribuidos += partes[i];
+        }
+
+        // Sobram menos centavos que passageiros; no empate, ganha quem embarca primeiro
+        Integer[] ordem = new Integer[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            ordem[i] = i;
+        }
+        Arrays.sort(ordem, (a, b) -> Long.compare(restos[b], restos[a]));
+        for (int k = 0; k < centavos - distribuidos; k++) {
+            partes[ordem[k]]++;
+        }
+
+        BigDecimal[] valores = new BigDecimal[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            valores[i] = BigDecimal.valueOf(partes[i], 2);
+        }
+        return valores;
+    }
+
+    /**
+     * Etapas 3 a 5 (cálculos locais, medidos em conjunto): velocidade média,
+     * tempo estimado e valor do trajeto na data de partida.
+     */
+    PrecoViagem precificar(Trajeto trajeto, LocalDateTime dataPartida) {
+        Timer.Sample amostraPrecificacao = Timer.start(meterRegistry);
+
+        // Etapa 3: Definir velocidade média baseada na região e no horário
+        double velocidadeMedia = definirVelocidadeMedia(trajeto.partida(), trajeto.destino(), dataPartida);
+
+        // Etapa 4: Calcular tempo estimado em minutos
+        double tempoMinutos = calcularTempoViagem(trajeto.distanciaKm(), velocidadeMedia);
+
+        // Etapa 5: Calcular valor total da viagem
+        double valorTotal = calcularValorViagem(trajeto.distanciaKm(), tempoMinutos, dataPartida);
+
+        amostraPrecificacao.stop(meterRegistry.timer(METRICA_ETAPA, "etapa", "precificacao"));
+
+        return new PrecoViagem(dataPartida, velocidadeMedia, tempoMinutos,
+                BigDecimal.valueOf(valorTotal).setScale(2, RoundingMode.HALF_UP));
+    }
+
+    /**
+     * Executa um cálculo registrando duração e resultado na métrica informada.
+     * Erros inesperados viram 500; os demais mantêm o status original.
+     */
+    private <T> T executarCalculo(String metrica, Supplier<T> calculo) {
+        Timer.Sample amostraCalculo = Timer.start(meterRegistry);
+        String resultado = "erro";
+
+        try {
+            T retorno = calculo.get();
+            resultado = "sucesso";
+            return retorno;
 
         } catch (ResponseStatusException e) {
             logger.error("Erro ao calcular rota: {} - {}", e.getStatusCode(), e.getReason());
+            registrarFalha(e.getStatusCode().value());
             throw e;
         } catch (Exception e) {
             logger.error("Erro inesperado ao calcular rota: {}", e.getMessage(), e);
+            registrarFalha(HttpStatus.INTERNAL_SERVER_ERROR.value());
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, 
                                             "Erro ao calcular a rota", e);
+        } finally {
+            amostraCalculo.stop(meterRegistry.timer(metrica, "resultado", resultado));
         }
     }
 
+    /**
+     * Coordenadas do endereço, consultando a OpenCage apenas se não estiverem em cache.
+     * 
+     * A chave é o endereço já preparado (sem número, em minúsculas), o mesmo texto enviado à API.
+     * Buscas simultâneas do mesmo endereço esperam pela mesma consulta; se ela falhar, todas
+     * recebem o erro, nada fica em cache e a próxima busca consulta de novo.
+     */
+    private Coordenadas buscarCoordenadasComCache(String endereco) {
+        return carregarUmaVez(cacheCoordenadas, chaveCoordenadas(endereco), acertosCoordenadas, falhasCoordenadas,
+                              () -> buscarCoordenadas(endereco));
+    }
+
+    /**
+     * Valor em cache ou carregado pela thread que registrou a consulta primeiro. A pausa e a
+     * chamada HTTP rodam na thread do chamador, depois do putIfAbsent: nenhuma trava do mapa
+     * fica presa durante a consulta, e as demais buscas da chave esperam pelo mesmo future.
+     * Um future concluído com erro sai do cache automaticamente.
+     */
+    private <T> T carregarUmaVez(AsyncCache<String, T> cache, String chave,
+                                 Counter acertos, Counter falhas, Supplier<T> consulta) {
+        CompletableFuture<T> consultaNova = new CompletableFuture<>();
+        CompletableFuture<T> emCache = cache.asMap().putIfAbsent(chave, consultaNova);
+
+        if (emCache != null) {
+            acertos.increment();
+            try {
+                return emCache.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException causa ? causa : e;
+            }
+        }
+
+        falhas.increment();
+        try {
+            T valor = consulta.get();
+            consultaNova.complete(valor);
+            return valor;
+        } catch (RuntimeException | Error e) {
+            // Sem isso, as buscas que esperam por este future ficariam presas
+            consultaNova.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Caches, URLs e preço também usados pelo RotaReativaService, que compartilha os caches com este serviço
+
+    // As consultas reativas não esperam: uma consulta ainda em andamento conta como falha
+
+    Coordenadas coordenadasEmCache(String endereco) {
+        Coordenadas coordenadas = cacheCoordenadas.synchronous().getIfPresent(chaveCoordenadas(endereco));
+        (coordenadas != null ? acertosCoordenadas : falhasCoordenadas).increment();
+        return coordenadas;
+    }
+
+    void guardarCoordenadas(String endereco, Coordenadas coordenadas) {
+        cacheCoordenadas.synchronous().put(chaveCoordenadas(endereco), coordenadas);
+    }
+
+    Double distanciaEmCache(Coordenadas partida, Coordenadas destino) {
+        Double distanciaKm = cacheDistancias.synchronous().getIfPresent(chaveDistancia(partida, destino));
+        (distanciaKm != null ? acertosDistancias : falhasDistancias).increment();
+        return distanciaKm;
+    }
+
+    void guardarDistancia(Coordenadas partida, Coordenadas destino, double distanciaKm) {
+        cacheDistancias.synchronous().put(chaveDistancia(partida, destino), distanciaKm);
+    }
+
+    String urlGeocodificacao(String endereco) {
+        // Preparar o endereço (remove número e adiciona cidade/estado)
+        String enderecoCompleto = prepararEndereco(endereco) + ", São Paulo - SP";
+        return String.format(URL_OPENCAGE, urlBaseOpenCage, enderecoCompleto, CHAVE_API);
+    }
+
+    String urlRota(Coordenadas partida, Coordenadas destino) {
+        // Coordenadas no formato long,lat;long,lat
+        return String.format(Locale.US, URL_OSRM, urlBaseOsrm,
+                             partida.longitude(), partida.latitude(),
+                             destino.longitude(), destino.latitude());
+    }
+
+    long pausaMs() {
+        return pausaMs;
+    }
+
+    /**
+     * Chave do cache de coordenadas: o endereço já preparado (sem número, em minúsculas),
+     * o mesmo texto enviado à API.
+     */
+    private String chaveCoordenadas(String endereco) {
+        return prepararEndereco(endereco).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Distância entre as coordenadas, consultando a OSRM apenas se não estiver em cache.
+     * Com o agrupamento ligado, a consulta é feita junto com as de outras requisições simultâneas.
+     * Como nas coordenadas, buscas simultâneas do mesmo par esperam pela mesma consulta.
+     */
+    private double calcularDistanciaComCache(Coordenadas partida, Coordenadas destino) {
+        return carregarUmaVez(cacheDistancias, chaveDistancia(partida, destino), acertosDistancias, falhasDistancias,
+                              () -> agrupadorDistancias != null
+                                      ? agrupadorDistancias.calcular(new ParCoordenadas(partida, destino))
+                                      : calcularDistancia(partida, destino));
+    }
+
+    /**
+     * Chave do cache de distâncias, com a mesma precisão (6 casas) da URL da OSRM.
+     */
+    private static String chaveDistancia(Coordenadas partida, Coordenadas destino) {
+        return String.format(Locale.US, "%.6f,%.6f;%.6f,%.6f",
+                             partida.longitude(), partida.latitude(),
+                             destino.longitude(), destino.latitude());
+    }
+
+    /**
+     * Distâncias de um lote de pares (null = sem rota). Um par isolado usa o serviço
+     * route da OSRM, como antes do agrupamento; vários pares, uma única chamada ao table.
+     */
+    private Double[] resolverLoteDistancias(List<ParCoordenadas> pares) {
+        paresPorChamada.record(pares.size());
+
+        if (pares.size() == 1) {
+            return new Double[] { calcularDistancia(pares.get(0).origem(), pares.get(0).destino()) };
+        }
+
+        // Cada coordenada vai uma única vez na URL; origens e destinos são índices nessa lista
+        Map<Coordenadas, Integer> indices = new LinkedHashMap<>();
+        Map<Integer, Integer> origens = new LinkedHashMap<>();
+        Map<Integer, Integer> destinos = new LinkedHashMap<>();
+
+        for (ParCoordenadas par : pares) {
+            int origem = indices.computeIfAbsent(par.origem(), coordenadas -> indices.size());
+            int destino = indices.computeIfAbsent(par.destino(), coordenadas -> indices.size());
+            origens.putIfAbsent(origem, origens.size());
+            destinos.putIfAbsent(destino, destinos.size());
+        }
+
+        Double[][] tabela = consultarTabela(new ArrayList<>(indices.keySet()),
+                new ArrayList<>(origens.keySet()), new ArrayList<>(destinos.keySet()));
+        Double[] distancias = new Double[pares.size()];
+
+        for (int i = 0; i < pares.size(); i++) {
+            ParCoordenadas par = pares.get(i);
+            distancias[i] = tabela[origens.get(indices.get(par.origem()))][destinos.get(indices.get(par.destino()))];
+        }
+
+        return distancias;
+    }
+
     /**
      * Busca as coordenadas (latitude e longitude) de um endereço.
      * 
@@ -124,34 +536,26 @@ public class RotaService {
      */
     private Coordenadas buscarCoordenadas(String endereco) {
         try {
-            // Aguardar 2 segundos para não sobrecarregar a API
+            // Aguardar (2 segundos por padrão) para não sobrecarregar a API
             pausarRequisicao();
 
-            // Preparar o endereço (remove número e adiciona cidade/estado)
-            String enderecoCompleto = prepararEndereco(endereco) + ", São Paulo - SP";
-            String url = String.format(URL_OPENCAGE, enderecoCompleto, CHAVE_API);
+            String url = urlGeocodificacao(endereco);
 
-            logger.info("Buscando coordenadas para: {}", endereco);
+            logger.debug("Buscando coordenadas para: {}", endereco);
 
-            // Fazer requisição HTTP
-            String respostaJson = fazerRequisicaoGET(url);
-
-            // Processar resposta JSON
-            JsonNode json = conversorJson.readTree(respostaJson);
+            // Fazer requisição HTTP e ler a geometria do primeiro resultado direto da resposta
+            Coordenadas coordenadas = lerRespostaGET(url, PROVEDOR_OPENCAGE, LeitorRespostas::lerCoordenadas);
 
             // Verificar se encontrou resultados
-            if (json.has("results") && json.get("results").size() > 0) {
-                JsonNode primeiroResultado = json.get("results").get(0);
-                JsonNode geometria = primeiroResultado.path("geometry");
-                
-                double latitude = geometria.path("lat").asDouble();
-                double longitude = geometria.path("lng").asDouble();
-                
-                logger.info("Coordenadas encontradas: lat={}, lng={}", latitude, longitude);
-                return new Coordenadas(latitude, longitude);
+            if (coordenadas != null) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Coordenadas encontradas: lat={}, lng={}", coordenadas.latitude(), coordenadas.longitude());
+                }
+                return coordenadas;
             }
 
             // Nenhum resultado encontrado
+            enderecosNaoEncontrados.increment();
             logger.error("Endereço não encontrado: {}", endereco);
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, 
                                             "Endereço não encontrado: " + endereco);
@@ -173,31 +577,24 @@ public class RotaService {
      */
     private double calcularDistancia(Coordenadas partida, Coordenadas destino) {
         try {
-            // Aguardar 2 segundos para não sobrecarregar a API
+            // Aguardar (2 segundos por padrão) para não sobrecarregar a API
             pausarRequisicao();
 
-            // Montar URL com as coordenadas (formato: long,lat;long,lat)
-            String url = String.format(Locale.US, URL_OSRM,
-                                     partida.longitude(), partida.latitude(),
-                                     destino.longitude(), destino.latitude());
+            String url = urlRota(partida, destino);
 
-            logger.info("Calculando distância da rota");
+            logger.debug("Calculando distância da rota");
 
-            // Fazer requisição HTTP
-            String respostaJson = fazerRequisicaoGET(url);
-
-            // Processar resposta JSON
-            JsonNode json = conversorJson.readTree(respostaJson);
+            // Fazer requisição HTTP e ler a distância da primeira rota direto da resposta
+            Double distanciaMetros = lerRespostaGET(url, PROVEDOR_OSRM, LeitorRespostas::lerDistancia);
 
             // Verificar se encontrou rotas
-            if (json.has("routes") && json.get("routes").size() > 0) {
-                JsonNode primeiraRota = json.get("routes").get(0);
-                double distanciaMetros = primeiraRota.get("distance").asDouble();
-                
+            if (distanciaMetros != null) {
                 // Converter de metros para quilômetros
                 double distanciaKm = distanciaMetros / 1000.0;
                 
-                logger.info("Distância calculada: {} km", distanciaKm);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Distância calculada: {} km", distanciaKm);
+                }
                 return distanciaKm;
             }
 
@@ -215,44 +612,112 @@ public class RotaService {
     }
 
     /**
-     * Define a velocidade média baseada no horário da viagem.
-     * 
-     * Considera:
-     * - Fim de semana: trânsito mais livre (60 km/h)
-     * - Pico da manhã (6h-9h): trânsito lento (30 km/h)
-     * - Pico da tarde (16h-19h): trânsito lento (35 km/h)
-     * - Horário normal: trânsito regular (50 km/h)
+     * Distâncias (km) entre todos os pares de pontos, com uma única chamada ao serviço
+     * table da OSRM em vez de uma chamada por par. Linha = origem, coluna = destino.
      */
-    private double definirVelocidadeMedia(LocalDateTime dataHoraPartida) {
-        // Se não informou horário, usa velocidade normal
-        if (dataHoraPartida == null) {
-            return VELOCIDADE_NORMAL;
+    private double[][] buscarMatrizDistancias(List<Coordenadas> pontos) {
+        Double[][] tabela = consultarTabela(pontos, null, null);
+        double[][] distancias = new double[pontos.size()][pontos.size()];
+
+        for (int origem = 0; origem < pontos.size(); origem++) {
+            for (int destino = 0; destino < pontos.size(); destino++) {
+                if (tabela[origem][destino] == null) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Rota não encontrada");
+                }
+                distancias[origem][destino] = tabela[origem][destino];
+            }
         }
 
-        // Verificar se é fim de semana
-        if (ehFimDeSemana(dataHoraPartida)) {
-            logger.info("Fim de semana: velocidade {} km/h", VELOCIDADE_FIM_DE_SEMANA);
-            return VELOCIDADE_FIM_DE_SEMANA;
-        }
+        return distancias;
+    }
+
+    /**
+     * Consulta o serviço table da OSRM: distâncias (km) das origens para os destinos,
+     * informados como índices na lista de pontos (null = todos os pontos). Linha = origem,
+     * coluna = destino; null onde não há rota.
+     */
+    private Double[][] consultarTabela(List<Coordenadas> pontos, List<Integer> origens, List<Integer> destinos) {
+        try {
+            // Aguardar (2 segundos por padrão) para não sobrecarregar a API
+            pausarRequisicao();
+
+            StringBuilder caminho = new StringBuilder();
+            for (Coordenadas ponto : pontos) {
+                if (!caminho.isEmpty()) {
+                    caminho.append(';');
+                }
+                caminho.append(String.format(Locale.US, "%.6f,%.6f", ponto.longitude(), ponto.latitude()));
+            }
+
+            StringBuilder url = new StringBuilder(String.format(URL_OSRM_TABELA, urlBaseOsrm, caminho));
+            if (origens != null) {
+                url.append("&sources=").append(juntarIndices(origens));
+            }
+            if (destinos != null) {
+                url.append("&destinations=").append(juntarIndices(destinos));
+            }
 
-        // Extrair apenas o horário
-        LocalTime horario = dataHoraPartida.toLocalTime();
+            logger.debug("Consultando tabela de distâncias de {} pontos", pontos.size());
 
-        // Verificar se está no horário de pico da manhã
-        if (horario.isAfter(INICIO_PICO_MANHA) && horario.isBefore(FIM_PICO_MANHA)) {
-            logger.info("Pico da manhã: velocidade {} km/h", VELOCIDADE_PICO_MANHA);
-            return VELOCIDADE_PICO_MANHA;
+            int totalOrigens = origens != null ? origens.size() : pontos.size();
+            int totalDestinos = destinos != null ? destinos.size() : pontos.size();
+
+            // Matriz em metros lida direto da resposta; null onde não há rota entre os pontos
+            Double[][] distancias = lerRespostaGET(url.toString(), PROVEDOR_OSRM,
+                    parser -> LeitorRespostas.lerTabela(parser, totalOrigens, totalDestinos));
+
+            if (distancias == null) {
+                logger.error("Tabela de distâncias não encontrada");
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Rota não encontrada");
+            }
+
+            for (Double[] linha : distancias) {
+                for (int destino = 0; destino < totalDestinos; destino++) {
+                    if (linha[destino] != null) {
+                        linha[destino] = linha[destino] / 1000.0;
+                    }
+                }
+            }
+
+            return distancias;
+
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Erro ao consultar tabela de distâncias: {}", e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                                            "Erro ao calcular distância", e);
         }
+    }
 
-        // Verificar se está no horário de pico da tarde
-        if (horario.isAfter(INICIO_PICO_TARDE) && horario.isBefore(FIM_PICO_TARDE)) {
-            logger.info("Pico da tarde: velocidade {} km/h", VELOCIDADE_PICO_TARDE);
-            return VELOCIDADE_PICO_TARDE;
+    private static String juntarIndices(List<Integer> indices) {
+        StringBuilder texto = new StringBuilder();
+        for (int indice : indices) {
+            if (!texto.isEmpty()) {
+                texto.append(';');
+            }
+            texto.append(indice);
         }
+        return texto.toString();
+    }
+
+    /**
+     * Define a velocidade média baseada na região e no horário da viagem.
+     * 
+     * A base é a velocidade da tabela de tarifas, por dia da semana e intervalo
+     * de 15 minutos (ex.: pico da manhã, pico da tarde, fim de semana). Ela é
+     * ajustada pelo histórico das viagens concluídas na mesma região e horário.
+     * Sem horário informado, usa a velocidade padrão da tabela.
+     */
+    double definirVelocidadeMedia(Coordenadas partida, Coordenadas destino, LocalDateTime dataHoraPartida) {
+        double velocidade = velocidadeHistoricaService.estimar(
+                partida.latitude(), partida.longitude(), destino.latitude(), destino.longitude(),
+                dataHoraPartida, tarifaService.velocidade(dataHoraPartida));
 
-        // Horário normal
-        logger.info("Horário normal: velocidade {} km/h", VELOCIDADE_NORMAL);
-        return VELOCIDADE_NORMAL;
+        if (logger.isDebugEnabled()) {
+            logger.debug("Velocidade para {}: {} km/h", dataHoraPartida, velocidade);
+        }
+        return velocidade;
     }
 
     /**
@@ -261,52 +726,44 @@ public class RotaService {
      * Fórmula: tempo = (distância / velocidade) * 60
      * Exemplo: 10 km a 50 km/h = (10/50) * 60 = 12 minutos
      */
-    private double calcularTempoViagem(double distanciaKm, double velocidadeKmPorHora) {
+    double calcularTempoViagem(double distanciaKm, double velocidadeKmPorHora) {
         double tempoHoras = distanciaKm / velocidadeKmPorHora;
         double tempoMinutos = tempoHoras * 60;
         
-        logger.info("Tempo estimado: {} minutos", tempoMinutos);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Tempo estimado: {} minutos", tempoMinutos);
+        }
         return tempoMinutos;
     }
 
     /**
      * Calcula o valor total da viagem.
      * 
-     * Composição do preço:
-     * - Tarifa base: R$ 5,00 (valor fixo)
-     * - Distância: R$ 1,50 por km
-     * - Tempo: R$ 0,50 por minuto
-     * - Seguro: R$ 2,00 (valor fixo)
+     * Composição do preço (valores da tabela de tarifas):
+     * - Tarifa base e seguro (valores fixos)
+     * - Distância: valor por km
+     * - Tempo: valor por minuto
+     * - Acréscimo e multiplicador da faixa do horário de partida, se houver
      */
-    private double calcularValorViagem(double distanciaKm, double tempoMinutos) {
-        double valorDistancia = distanciaKm * VALOR_POR_KM;
-        double valorTempo = tempoMinutos * VALOR_POR_MINUTO;
-        double valorTotal = TARIFA_BASE + valorDistancia + valorTempo + VALOR_SEGURO;
+    double calcularValorViagem(double distanciaKm, double tempoMinutos, LocalDateTime dataHoraPartida) {
+        double valorTotal = tarifaService.valor(distanciaKm, tempoMinutos, dataHoraPartida);
         
-        logger.info("Valor calculado: R$ {}", valorTotal);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Valor calculado: R$ {}", valorTotal);
+        }
         return valorTotal;
     }
 
-    /**
-     * Verifica se a data é fim de semana (sábado ou domingo).
-     */
-    private boolean ehFimDeSemana(LocalDateTime dataHora) {
-        DayOfWeek diaDaSemana = dataHora.getDayOfWeek();
-        return diaDaSemana == DayOfWeek.SATURDAY || diaDaSemana == DayOfWeek.SUNDAY;
-    }
-
     /**
      * Prepara o endereço para busca, removendo o número.
      * 
      * Exemplo: "Rua das Flores, 123" -> "Rua das Flores"
      * Isso melhora a precisão da busca de coordenadas.
      */
-    private String prepararEndereco(String endereco) {
+    String prepararEndereco(String endereco) {
         String enderecoLimpo = endereco.trim();
         
-        // Regex para remover vírgula ou espaço seguido de números no final
-        Pattern pattern = Pattern.compile("(.*?)[,\\s]+\\d+$");
-        Matcher matcher = pattern.matcher(enderecoLimpo);
+        Matcher matcher = PADRAO_NUMERO_FINAL.matcher(enderecoLimpo);
         
         if (matcher.matches()) {
             return matcher.group(1);
@@ -316,32 +773,80 @@ public class RotaService {
     }
 
     /**
-     * Faz uma requisição HTTP GET para uma URL.
+     * Faz uma requisição HTTP GET e lê a resposta JSON enquanto ela é recebida, sem
+     * copiá-la para uma String. O leitor pode parar antes do fim da resposta.
      * 
-     * Adiciona o cabeçalho User-Agent para identificar nossa aplicação.
+     * O tempo de cada chamada (incluindo a leitura) é registrado por provedor e status HTTP.
      */
-    private String fazerRequisicaoGET(String url) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("User-Agent", "ViagemApp/1.0");
-        
-        HttpEntity<String> request = new HttpEntity<>(headers);
-        ResponseEntity<String> response = clienteHttp.exchange(url, HttpMethod.GET, request, String.class);
-        
-        return response.getBody();
+    private <T> T lerRespostaGET(String url, String provedor, LeitorRespostas.Leitor<T> leitor) {
+        Timer.Sample amostra = Timer.start(meterRegistry);
+        String[] status = {"IO_ERROR"};
+
+        try {
+            return clienteHttp.execute(url, HttpMethod.GET,
+                    requisicao -> {
+                        requisicao.getHeaders().set("User-Agent", "ViagemApp/1.0");
+                        requisicao.getHeaders().set("Accept", "application/json");
+                    },
+                    resposta -> {
+                        status[0] = String.valueOf(resposta.getStatusCode().value());
+                        try (JsonParser parser = fabricaJson.createParser(resposta.getBody())) {
+                            return leitor.ler(parser);
+                        }
+                    });
+        } catch (HttpStatusCodeException e) {
+            status[0] = String.valueOf(e.getStatusCode().value());
+            throw e;
+        } finally {
+            amostra.stop(meterRegistry.timer(METRICA_HTTP, "provedor", provedor, "status", status[0]));
+        }
+    }
+
+    /**
+     * Executa uma etapa do cálculo da rota registrando a sua duração.
+     */
+    private <T> T medirEtapa(String etapa, Supplier<T> execucao) {
+        Timer.Sample amostra = Timer.start(meterRegistry);
+
+        try {
+            return execucao.get();
+        } finally {
+            amostra.stop(meterRegistry.timer(METRICA_ETAPA, "etapa", etapa));
+        }
+    }
+
+    private Counter contadorCache(String cache, String resultado) {
+        return Counter.builder("rota.cache")
+                .description("Consultas aos caches das APIs externas")
+                .tag("cache", cache)
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    private void registrarFalha(int status) {
+        meterRegistry.counter("rota.falhas", "status", String.valueOf(status)).increment();
     }
 
     /**
-     * Pausa a execução por 2 segundos.
+     * Pausa a execução por rota.pausa-ms (2 segundos por padrão).
      * 
      * Isso evita fazer muitas requisições seguidas às APIs externas,
      * respeitando os limites de taxa (rate limiting).
      */
     private void pausarRequisicao() {
+        if (pausaMs <= 0) {
+            return;
+        }
+
+        Timer.Sample amostra = Timer.start(meterRegistry);
+
         try {
-            Thread.sleep(2000); // 2000 milissegundos = 2 segundos
+            Thread.sleep(pausaMs);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             logger.warn("Pausa interrompida: {}", e.getMessage());
+        } finally {
+            amostra.stop(meterRegistry.timer(METRICA_ETAPA, "etapa", "pausa"));
         }
     }
 }
\ No newline at end of file
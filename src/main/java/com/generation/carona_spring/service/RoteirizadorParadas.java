@@ -0,0 +1,101 @@
+package com.generation.carona_spring.service;
+
+/**
+ * Ordem de passagem pelas paradas que reduz a distância total de uma viagem.
+ *
+ * A matriz de distâncias tem a partida no índice 0, o destino no último índice e as
+ * paradas entre eles; pode ser assimétrica (ruas de mão única). Partida e destino são
+ * fixos. A ordem inicial é a do vizinho mais próximo, melhorada por 2-opt (inversão de
+ * trechos) até que nenhuma inversão reduza a distância. Não garante a ordem ótima,
+ * mas com as poucas paradas de uma carona roda em microssegundos.
+ */
+final class RoteirizadorParadas {
+
+    // Evita trocas que só melhoram por erro de arredondamento
+    private static final double TOLERANCIA = 1e-9;
+
+    private RoteirizadorParadas() { }
+
+    /**
+     * Trajeto completo: índices da matriz na ordem de passagem, começando na partida e
+     * terminando no destino.
+     */
+    static int[] ordenar(double[][] distancias) {
+        int[] rota = vizinhoMaisProximo(distancias);
+        melhorarComDoisOpt(rota, distancias);
+        return rota;
+    }
+
+    static double distanciaTotal(int[] rota, double[][] distancias) {
+        double total = 0;
+        for (int i = 0; i < rota.length - 1; i++) {
+            total += distancias[rota[i]][rota[i + 1]];
+        }
+        return total;
+    }
+
+    private static int[] vizinhoMaisProximo(double[][] distancias) {
+        int pontos = distancias.length;
+        int destino = pontos - 1;
+        int[] rota = new int[pontos];
+        boolean[] visitadas = new boolean[pontos];
+
+        rota[destino] = destino;
+        int atual = 0;
+
+        for (int posicao = 1; posicao < destino; posicao++) {
+            int proxima = -1;
+
+            for (int parada = 1; parada < destino; parada++) {
+                if (!visitadas[parada] && (proxima < 0 || distancias[atual][parada] < distancias[atual][proxima])) {
+                    proxima = parada;
+                }
+            }
+
+            visitadas[proxima] = true;
+            rota[posicao] = proxima;
+            atual = proxima;
+        }
+
+        return rota;
+    }
+
+    /**
+     * Inverte o trecho rota[i..j] sempre que isso encurta o trajeto. Como a matriz pode
+     * ser assimétrica, a variação considera também o sentido das arestas internas do trecho.
+     */
+    private static void melhorarComDoisOpt(int[] rota, double[][] distancias) {
+        int ultimaParada = rota.length - 2;
+        boolean melhorou = true;
+
+        while (melhorou) {
+            melhorou = false;
+
+            for (int i = 1; i < ultimaParada; i++) {
+                for (int j = i + 1; j <= ultimaParada; j++) {
+                    double atual = distancias[rota[i - 1]][rota[i]] + distancias[rota[j]][rota[j + 1]];
+                    double invertido = distancias[rota[i - 1]][rota[j]] + distancias[rota[i]][rota[j + 1]];
+
+                    for (int k = i; k < j; k++) {
+                        atual += distancias[rota[k]][rota[k + 1]];
+                        invertido += distancias[rota[k + 1]][rota[k]];
+                    }
+
+                    if (invertido < atual - TOLERANCIA) {
+                        inverter(rota, i, j);
+                        melhorou = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void inverter(int[] rota, int inicio, int fim) {
+        while (inicio < fim) {
+            int temporario = rota[inicio];
+            rota[inicio++] = rota[fim];
+            rota[fim--] = temporario;
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.generation.carona_spring.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import com.generation.carona_spring.records.ConfiguracaoTarifaria;
+import com.generation.carona_spring.records.FaixaTarifaria;
+
+/**
+ * Tabela de tarifas compilada a partir da ConfiguracaoTarifaria.
+ *
+ * A semana é dividida em 7 x 96 intervalos de 15 minutos. Para cada intervalo
+ * são pré-calculados a velocidade média, o acréscimo e o multiplicador, de modo
+ * que a consulta por data/hora é um acesso direto a um array, sem percorrer as faixas.
+ *
+ * A instância é imutável: a recarga cria uma nova tabela e a troca de uma só vez
+ * (ver TarifaService).
+ */
+public final class TabelaTarifaria {
+
+    public static final int MINUTOS_POR_INTERVALO = 15;
+    public static final int INTERVALOS_POR_DIA = 24 * 60 / MINUTOS_POR_INTERVALO;
+    public static final int TOTAL_INTERVALOS = 7 * INTERVALOS_POR_DIA;
+
+    private final String versao;
+    private final ConfiguracaoTarifaria configuracao;
+
+    // Valores fixos por viagem: tarifa base + seguro
+    private final double valorFixo;
+    private final double valorPorKm;
+    private final double valorPorMinuto;
+    private final double velocidadePadrao;
+
+    private final double[] velocidades = new double[TOTAL_INTERVALOS];
+    private final double[] acrescimos = new double[TOTAL_INTERVALOS];
+    private final double[] multiplicadores = new double[TOTAL_INTERVALOS];
+
+    private TabelaTarifaria(ConfiguracaoTarifaria configuracao, String versao) {
+        this.versao = versao;
+        this.configuracao = configuracao;
+        this.valorFixo = configuracao.tarifaBase() + configuracao.valorSeguro();
+        this.valorPorKm = configuracao.valorPorKm();
+        this.valorPorMinuto = configuracao.valorPorMinuto();
+        this.velocidadePadrao = configuracao.velocidadePadrao();
+
+        Arrays.fill(velocidades, velocidadePadrao);
+        Arrays.fill(multiplicadores, 1.0);
+    }
+
+    /**
+     * Valida a configuração e pré-calcula os intervalos da semana.
+     *
+     * Lança IllegalArgumentException se algum valor for inválido.
+     */
+    public static TabelaTarifaria compilar(ConfiguracaoTarifaria configuracao, String versao) {
+        exigir(configuracao.velocidadePadrao() > 0, "velocidadePadrao deve ser maior que zero");
+        exigir(configuracao.tarifaBase() >= 0 && configuracao.valorPorKm() >= 0
+                && configuracao.valorPorMinuto() >= 0 && configuracao.valorSeguro() >= 0,
+                "os valores da tarifa não podem ser negativos");
+
+        TabelaTarifaria tabela = new TabelaTarifaria(configuracao, versao);
+
+        if (configuracao.faixas() == null) {
+            return tabela;
+        }
+
+        for (FaixaTarifaria faixa : configuracao.faixas()) {
+            int inicio = converterHorario(faixa.inicio(), faixa.nome());
+            int fim = converterHorario(faixa.fim(), faixa.nome());
+
+            exigir(inicio < fim, "faixa '" + faixa.nome() + "': inicio deve ser anterior ao fim");
+            exigir(faixa.velocidade() > 0, "faixa '" + faixa.nome() + "': velocidade deve ser maior que zero");
+            exigir(faixa.dias() != null && !faixa.dias().isEmpty(), "faixa '" + faixa.nome() + "': informe os dias");
+            exigir(faixa.multiplicador() == null || faixa.multiplicador() > 0,
+                    "faixa '" + faixa.nome() + "': multiplicador deve ser maior que zero");
+
+            double acrescimo = faixa.acrescimo() == null ? 0.0 : faixa.acrescimo();
+            double multiplicador = faixa.multiplicador() == null ? 1.0 : faixa.multiplicador();
+
+            // Um intervalo pertence à faixa se começa dentro de [inicio, fim)
+            int primeiro = (inicio + MINUTOS_POR_INTERVALO - 1) / MINUTOS_POR_INTERVALO;
+            int ultimo = (fim + MINUTOS_POR_INTERVALO - 1) / MINUTOS_POR_INTERVALO;
+
+            for (DayOfWeek dia : faixa.dias()) {
+                int base = (dia.getValue() - 1) * INTERVALOS_POR_DIA;
+
+                for (int intervalo = primeiro; intervalo < ultimo; intervalo++) {
+                    tabela.velocidades[base + intervalo] = faixa.velocidade();
+                    tabela.acrescimos[base + intervalo] = acrescimo;
+                    tabela.multiplicadores[base + intervalo] = multiplicador;
+                }
+            }
+        }
+
+        return tabela;
+    }
+
+    /**
+     * Posição do intervalo de 15 minutos na semana (segunda 00:00 = 0).
+     */
+    public static int indice(LocalDateTime dataHora) {
+        return (dataHora.getDayOfWeek().getValue() - 1) * INTERVALOS_POR_DIA
+                + dataHora.getHour() * (60 / MINUTOS_POR_INTERVALO)
+                + dataHora.getMinute() / MINUTOS_POR_INTERVALO;
+    }
+
+    /**
+     * Velocidade média (km/h) no horário de partida; sem horário, usa a velocidade padrão.
+     */
+    public double velocidade(LocalDateTime dataHora) {
+        return dataHora == null ? velocidadePadrao : velocidades[indice(dataHora)];
+    }
+
+    /**
+     * Valor da viagem: (tarifa base + distância x valor/km + tempo x valor/min + seguro
+     * + acréscimo da faixa) x multiplicador da faixa.
+     */
+    public double valor(double distanciaKm, double tempoMinutos, LocalDateTime dataHora) {
+        double valor = valorFixo + distanciaKm * valorPorKm + tempoMinutos * valorPorMinuto;
+
+        if (dataHora == null) {
+            return valor;
+        }
+
+        int indice = indice(dataHora);
+        return (valor + acrescimos[indice]) * multiplicadores[indice];
+    }
+
+    public String getVersao() {
+        return versao;
+    }
+
+    public ConfiguracaoTarifaria getConfiguracao() {
+        return configuracao;
+    }
+
+    /**
+     * Converte "HH:mm" em minutos desde 00:00 ("24:00" = 1440).
+     */
+    private static int converterHorario(String horario, String faixa) {
+        try {
+            String[] partes = horario.split(":");
+            int minutos = Integer.parseInt(partes[0]) * 60 + Integer.parseInt(partes[1]);
+            exigir(minutos >= 0 && minutos <= 24 * 60, "faixa '" + faixa + "': horário fora do dia: " + horario);
+            return minutos;
+        } catch (NullPointerException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("faixa '" + faixa + "': horário inválido: " + horario, e);
+        }
+    }
+
+    private static void exigir(boolean condicao, String mensagem) {
+        if (!condicao) {
+            throw new IllegalArgumentException(mensagem);
+        }
+    }
+
+}
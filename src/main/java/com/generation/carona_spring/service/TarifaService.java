@@ -0,0 +1,143 @@
+package com.generation.carona_spring.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.generation.carona_spring.records.ConfiguracaoTarifaria;
+
+/**
+ * Mantém a tabela de tarifas em uso.
+ *
+ * A tabela é carregada do arquivo configurado em tarifa.arquivo (tarifas.json por padrão)
+ * e compilada em uma TabelaTarifaria. A recarga (manual ou quando o arquivo muda) monta
+ * a nova tabela por completo antes de trocá-la, de modo que um cálculo em andamento
+ * sempre enxerga uma tabela inteira, antiga ou nova. Um arquivo inválido é rejeitado
+ * e a tabela anterior continua em uso.
+ */
+@Service
+public class TarifaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TarifaService.class);
+
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper conversorJson;
+    private final String arquivo;
+
+    private final AtomicReference<TabelaTarifaria> tabela = new AtomicReference<>();
+    private volatile long ultimaModificacao;
+
+    public TarifaService(ResourceLoader resourceLoader, ObjectMapper conversorJson,
+                         @Value("${tarifa.arquivo:classpath:tarifas.json}") String arquivo) {
+        this.resourceLoader = resourceLoader;
+        this.conversorJson = conversorJson;
+        this.arquivo = arquivo;
+
+        // Sem uma tabela válida a aplicação não consegue precificar viagens: falha na inicialização
+        this.tabela.set(carregar());
+    }
+
+    public TabelaTarifaria getTabela() {
+        return tabela.get();
+    }
+
+    public double velocidade(LocalDateTime dataHora) {
+        return tabela.get().velocidade(dataHora);
+    }
+
+    public double valor(double distanciaKm, double tempoMinutos, LocalDateTime dataHora) {
+        return tabela.get().valor(distanciaKm, tempoMinutos, dataHora);
+    }
+
+    /**
+     * Relê o arquivo de tarifas e troca a tabela em uso.
+     *
+     * Se o arquivo for inválido, mantém a tabela atual e retorna 400.
+     */
+    public synchronized TabelaTarifaria recarregar() {
+        try {
+            TabelaTarifaria nova = carregar();
+            TabelaTarifaria anterior = tabela.getAndSet(nova);
+
+            if (!nova.getVersao().equals(anterior.getVersao())) {
+                logger.info("Tabela de tarifas atualizada: versão {} -> {}", anterior.getVersao(), nova.getVersao());
+            }
+
+            return nova;
+        } catch (IllegalStateException e) {
+            logger.error("Tabela de tarifas rejeitada, mantendo a versão {}: {}",
+                    tabela.get().getVersao(), e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recarrega a tabela quando o arquivo é alterado (apenas arquivos no sistema
+     * de arquivos; dentro do jar o conteúdo não muda).
+     */
+    @Scheduled(fixedDelayString = "${tarifa.verificacao-ms:30000}", initialDelayString = "${tarifa.verificacao-ms:30000}")
+    public void verificarAlteracao() {
+        long modificacao = consultarModificacao(resourceLoader.getResource(arquivo));
+
+        if (modificacao > 0 && modificacao != ultimaModificacao) {
+            try {
+                recarregar();
+            } catch (ResponseStatusException e) {
+                // Já registrado em recarregar(); evita tentar de novo até o arquivo mudar outra vez
+                ultimaModificacao = modificacao;
+            }
+        }
+    }
+
+    private TabelaTarifaria carregar() {
+        Resource recurso = resourceLoader.getResource(arquivo);
+        long modificacao = consultarModificacao(recurso);
+
+        try (InputStream entrada = recurso.getInputStream()) {
+            byte[] conteudo = entrada.readAllBytes();
+            ConfiguracaoTarifaria configuracao = conversorJson.readValue(conteudo, ConfiguracaoTarifaria.class);
+            TabelaTarifaria nova = TabelaTarifaria.compilar(configuracao, calcularVersao(conteudo));
+
+            ultimaModificacao = modificacao;
+            return nova;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("Arquivo de tarifas inválido (" + arquivo + "): " + e.getMessage(), e);
+        }
+    }
+
+    private static long consultarModificacao(Resource recurso) {
+        try {
+            return recurso.isFile() ? recurso.lastModified() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Versão da tabela: início do SHA-256 do conteúdo do arquivo.
+     */
+    private static String calcularVersao(byte[] conteudo) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(conteudo);
+            return HexFormat.of().formatHex(hash, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+}
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -13,8 +14,12 @@ import org.springframework.web.server.ResponseStatusException;
 
 import com.generation.carona_spring.model.Usuario;
 import com.generation.carona_spring.model.UsuarioLogin;
+import com.generation.carona_spring.model.UsuarioRefresh;
+import com.generation.carona_spring.model.UsuarioSenha;
 import com.generation.carona_spring.repository.UsuarioRepository;
 import com.generation.carona_spring.security.JwtService;
+import com.generation.carona_spring.security.LoginRateLimiter;
+import com.generation.carona_spring.security.RefreshTokenService;
 
 @Service
 public class UsuarioService {
@@ -31,6 +36,12 @@ public class UsuarioService {
 	@Autowired
 	private PasswordEncoder passwordEncoder;
 
+	@Autowired
+	private LoginRateLimiter loginRateLimiter;
+
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+
 	public List<Usuario> getAll() {
 		return usuarioRepository.findAll();
 	}
@@ -39,56 +50,140 @@ public class UsuarioService {
 		return usuarioRepository.findById(id);
 	}
 
+	/**
+	 * Cadastra um novo usuário.
+	 * 
+	 * A unicidade do e-mail é garantida pelo índice único de tb_usuarios.usuario,
+	 * evitando a consulta prévia e a condição de corrida entre verificar e inserir.
+	 */
 	public Optional<Usuario> cadastrarUsuario(Usuario usuario) {
 
-		if (usuarioRepository.findByUsuario(usuario.getUsuario()).isPresent()) {
+		if (usuario.getSenha() == null || usuario.getSenha().isBlank()) {
 			return Optional.empty();
 		}
 
 		usuario.setSenha(passwordEncoder.encode(usuario.getSenha()));
 		usuario.setId(null);
-		
-		return Optional.of(usuarioRepository.save(usuario));
+
+		try {
+			return Optional.of(usuarioRepository.saveAndFlush(usuario));
+		} catch (DataIntegrityViolationException e) {
+			return Optional.empty();
+		}
 	}
 
-	public Optional<Usuario> atualizarUsuario(Usuario usuario) {
+	/**
+	 * Atualiza o perfil do usuário autenticado com uma única consulta (por id).
+	 * 
+	 * A senha não é alterada aqui: se for omitida ou for o próprio hash já gravado,
+	 * o hash atual é mantido sem executar o BCrypt; uma senha nova é rejeitada com 400,
+	 * pois a troca exige a senha atual (alterarSenha). O perfil de outro usuário
+	 * não pode ser alterado (403).
+	 * 
+	 * Se o novo e-mail já pertencer a outro usuário, o índice único
+	 * rejeita a gravação e a requisição é respondida com 400.
+	 */
+	public Optional<Usuario> atualizarUsuario(Usuario usuario, String login) {
+
+		if (usuario.getId() == null) {
+			return Optional.empty();
+		}
 
-		if (!usuarioRepository.findById(usuario.getId()).isPresent()) {
+		Optional<Usuario> usuarioExistente = usuarioRepository.findById(usuario.getId());
+
+		if (usuarioExistente.isEmpty()) {
 			return Optional.empty();
 		}
 
-		Optional<Usuario> usuarioExistente = usuarioRepository.findByUsuario(usuario.getUsuario());
-		
-		if (usuarioExistente.isPresent() && !usuarioExistente.get().getId().equals(usuario.getId())) {
-			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Usuário já existe!", null);
+		if (!usuarioExistente.get().getUsuario().equals(login)) {
+			throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Não é possível alterar o perfil de outro usuário!");
 		}
 
-		usuario.setSenha(passwordEncoder.encode(usuario.getSenha()));
-		return Optional.of(usuarioRepository.save(usuario));
+		String senhaGravada = usuarioExistente.get().getSenha();
+
+		if (!senhaInalterada(usuario.getSenha(), senhaGravada)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"Para trocar a senha, use /usuarios/atualizar/senha");
+		}
+
+		usuario.setSenha(senhaGravada);
+
+		try {
+			return Optional.of(usuarioRepository.saveAndFlush(usuario));
+		} catch (DataIntegrityViolationException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Usuário já existe!", e);
+		}
 	}
 	
-	public Optional<UsuarioLogin> autenticarUsuario(Optional<UsuarioLogin> usuarioLogin) {
+	/**
+	 * Troca a senha do usuário autenticado, após conferir a senha atual.
+	 * 
+	 * A conferência passa pelo mesmo limite de tentativas do login, por usuário e por IP,
+	 * para que o endpoint não sirva para adivinhar a senha atual.
+	 * Retorna vazio se a senha atual não conferir. Os refresh tokens do usuário são revogados.
+	 */
+	public Optional<Usuario> alterarSenha(String login, UsuarioSenha usuarioSenha, String ip) {
+
+		loginRateLimiter.verificar(login, ip);
+
+		Optional<Usuario> usuario = usuarioRepository.findByUsuario(login);
+
+		if (usuario.isEmpty() || !passwordEncoder.matches(usuarioSenha.getSenhaAtual(), usuario.get().getSenha())) {
+			loginRateLimiter.registrarFalha(login);
+			return Optional.empty();
+		}
+
+		loginRateLimiter.registrarSucesso(login);
+
+		usuario.get().setSenha(passwordEncoder.encode(usuarioSenha.getNovaSenha()));
+
+		// Sessões abertas com a senha antiga não podem mais ser renovadas
+		refreshTokenService.revogarTodos(usuario.get());
+
+		return Optional.of(usuarioRepository.save(usuario.get()));
+	}
+
+	public Optional<UsuarioLogin> autenticarUsuario(Optional<UsuarioLogin> usuarioLogin, String ip) {
 
 		if (!usuarioLogin.isPresent()) {
 			return Optional.empty();
 		}
 
 		UsuarioLogin login = usuarioLogin.get();
+
+		// Rejeita o excesso de tentativas antes do BCrypt e da consulta ao banco
+		loginRateLimiter.verificar(login.getUsuario(), ip);
 		
 		try {
  
 			authenticationManager.authenticate(
 					new UsernamePasswordAuthenticationToken(login.getUsuario(), login.getSenha()));
 
+			loginRateLimiter.registrarSucesso(login.getUsuario());
+
 			return usuarioRepository.findByUsuario(login.getUsuario())
 				.map(usuario -> construirRespostaLogin(login, usuario));
 
+		} catch (ResponseStatusException e) {
+
+			// Pool de senhas saturado: não é falha de credencial
+			throw e;
+
 		} catch (Exception e) {
 
+			loginRateLimiter.registrarFalha(login.getUsuario());
 			return Optional.empty();
 		}
 	}
 
+	public Optional<UsuarioRefresh> renovarToken(UsuarioRefresh usuarioRefresh) {
+		return refreshTokenService.renovar(usuarioRefresh.getRefreshToken());
+	}
+
+	public void encerrarSessao(UsuarioRefresh usuarioRefresh) {
+		refreshTokenService.revogar(usuarioRefresh.getRefreshToken());
+	}
+
 	private UsuarioLogin construirRespostaLogin(UsuarioLogin usuarioLogin, Usuario usuario) {
 		
 		usuarioLogin.setId(usuario.getId());
@@ -97,10 +192,15 @@ public class UsuarioService {
 		usuarioLogin.setCelular(usuario.getCelular());
 		usuarioLogin.setSenha("");
 		usuarioLogin.setToken(gerarToken(usuario.getUsuario()));
+		usuarioLogin.setRefreshToken(refreshTokenService.gerar(usuario));
 		return usuarioLogin;
 		
 	}
 
+	private boolean senhaInalterada(String senhaInformada, String senhaGravada) {
+		return senhaInformada == null || senhaInformada.isBlank() || senhaInformada.equals(senhaGravada);
+	}
+
 	private String gerarToken(String usuario) {
 		return "Bearer " + jwtService.generateToken(usuario);
 	}
@@ -0,0 +1,278 @@
+package com.generation.carona_spring.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Velocidade média aprendida com as viagens concluídas, por célula da região e
+ * intervalo de 15 minutos da semana (o mesmo da tabela de tarifas).
+ *
+ * A região é uma grade de células (tamanho-celula graus) e cada viagem conta para
+ * a célula do ponto médio entre partida e destino. Para cada célula x intervalo são
+ * mantidos, em arrays primitivos, a soma das distâncias, a soma dos tempos e o peso
+ * das observações, todos com decaimento exponencial (meia-vida configurável): viagens
+ * antigas pesam cada vez menos.
+ *
+ * A estimativa combina a velocidade observada com a velocidade da tabela de tarifas,
+ * que vale como peso-padrao observações: com poucos dados, prevalece a tabela.
+ * A consulta é um acesso direto aos arrays (tempo constante).
+ */
+@Service
+public class VelocidadeHistoricaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VelocidadeHistoricaService.class);
+
+    private static final ZoneId FUSO = ZoneId.of("America/Sao_Paulo");
+
+    private static final String SQL_CONCLUIDAS =
+            "SELECT id, data_partida, distancia, tempo_real, latitude_partida, longitude_partida, "
+            + "latitude_destino, longitude_destino FROM tb_viagens "
+            + "WHERE id > ? AND tempo_real IS NOT NULL AND distancia IS NOT NULL AND latitude_partida IS NOT NULL "
+            + "AND data_partida >= ? ORDER BY id LIMIT ?";
+
+    private static final int TAMANHO_LOTE_CARGA = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean habilitado;
+
+    // Grade da região
+    private final double latitudeMinima;
+    private final double longitudeMinima;
+    private final double tamanhoCelula;
+    private final int linhas;
+    private final int colunas;
+
+    // Decaimento: fator por minuto e horizonte da carga inicial
+    private final double lambdaPorMinuto;
+    private final long horizonteMinutos;
+
+    private final double pesoPadrao;
+    private final double velocidadeMinima;
+    private final double velocidadeMaxima;
+
+    // [celula * TOTAL_INTERVALOS + intervalo]
+    private final double[] somaDistancias;
+    private final double[] somaHoras;
+    private final double[] pesos;
+    private final int[] minutoAtualizacao;
+
+    private final StampedLock trava = new StampedLock();
+
+    private final Counter observacoes;
+    private final Counter descartadas;
+
+    public VelocidadeHistoricaService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+            @Value("${velocidade.historico.habilitado:true}") boolean habilitado,
+            @Value("${velocidade.historico.latitude-minima:-24.1}") double latitudeMinima,
+            @Value("${velocidade.historico.latitude-maxima:-23.3}") double latitudeMaxima,
+            @Value("${velocidade.historico.longitude-minima:-47.2}") double longitudeMinima,
+            @Value("${velocidade.historico.longitude-maxima:-46.2}") double longitudeMaxima,
+            @Value("${velocidade.historico.tamanho-celula:0.05}") double tamanhoCelula,
+            @Value("${velocidade.historico.meia-vida-dias:30}") double meiaVidaDias,
+            @Value("${velocidade.historico.peso-padrao:3}") double pesoPadrao,
+            @Value("${velocidade.historico.velocidade-minima:3}") double velocidadeMinima,
+            @Value("${velocidade.historico.velocidade-maxima:130}") double velocidadeMaxima) {
+
+        if (latitudeMaxima <= latitudeMinima || longitudeMaxima <= longitudeMinima || tamanhoCelula <= 0
+                || meiaVidaDias <= 0 || pesoPadrao <= 0) {
+            throw new IllegalArgumentException("Configuração inválida de velocidade.historico");
+        }
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.habilitado = habilitado;
+        this.latitudeMinima = latitudeMinima;
+        this.longitudeMinima = longitudeMinima;
+        this.tamanhoCelula = tamanhoCelula;
+        this.linhas = (int) Math.ceil((latitudeMaxima - latitudeMinima) / tamanhoCelula);
+        this.colunas = (int) Math.ceil((longitudeMaxima - longitudeMinima) / tamanhoCelula);
+
+        double meiaVidaMinutos = meiaVidaDias * TimeUnit.DAYS.toMinutes(1);
+        this.lambdaPorMinuto = Math.log(2) / meiaVidaMinutos;
+        // Após 10 meias-vidas o peso é menor que 0,1%
+        this.horizonteMinutos = (long) (meiaVidaMinutos * 10);
+
+        this.pesoPadrao = pesoPadrao;
+        this.velocidadeMinima = velocidadeMinima;
+        this.velocidadeMaxima = velocidadeMaxima;
+
+        int tamanho = habilitado ? linhas * colunas * TabelaTarifaria.TOTAL_INTERVALOS : 0;
+        this.somaDistancias = new double[tamanho];
+        this.somaHoras = new double[tamanho];
+        this.pesos = new double[tamanho];
+        this.minutoAtualizacao = new int[tamanho];
+
+        this.observacoes = Counter.builder("velocidade.historico.observacoes")
+                .description("Viagens concluídas incorporadas ao histórico de velocidades")
+                .register(meterRegistry);
+        this.descartadas = Counter.builder("velocidade.historico.descartadas")
+                .description("Viagens concluídas fora da região ou com velocidade improvável")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Estima a velocidade média (km/h) da viagem.
+     *
+     * Sem horário, fora da região ou sem observações, retorna a velocidade da tabela.
+     */
+    public double estimar(double latitudePartida, double longitudePartida, double latitudeDestino,
+                          double longitudeDestino, LocalDateTime dataPartida, double velocidadeTabela) {
+        if (!habilitado || dataPartida == null) {
+            return velocidadeTabela;
+        }
+
+        int celula = celula((latitudePartida + latitudeDestino) / 2, (longitudePartida + longitudeDestino) / 2);
+
+        if (celula < 0) {
+            return velocidadeTabela;
+        }
+
+        int posicao = celula * TabelaTarifaria.TOTAL_INTERVALOS + TabelaTarifaria.indice(dataPartida);
+        int agora = minutoAtual();
+
+        // Leitura otimista: não bloqueia; repete com trava apenas se houve escrita no meio
+        long carimbo = trava.tryOptimisticRead();
+        double distancias = somaDistancias[posicao];
+        double horas = somaHoras[posicao];
+        double peso = pesos[posicao];
+        int minuto = minutoAtualizacao[posicao];
+
+        if (!trava.validate(carimbo)) {
+            carimbo = trava.readLock();
+            try {
+                distancias = somaDistancias[posicao];
+                horas = somaHoras[posicao];
+                peso = pesos[posicao];
+                minuto = minutoAtualizacao[posicao];
+            } finally {
+                trava.unlockRead(carimbo);
+            }
+        }
+
+        if (peso <= 0 || horas <= 0) {
+            return velocidadeTabela;
+        }
+
+        // O decaimento não altera a média (distâncias/horas), apenas a confiança (peso)
+        double pesoAtual = peso * decaimento(agora - minuto);
+        double velocidadeObservada = distancias / horas;
+
+        return (velocidadeObservada * pesoAtual + velocidadeTabela * pesoPadrao) / (pesoAtual + pesoPadrao);
+    }
+
+    /**
+     * Incorpora uma viagem concluída (distância em km, tempo real em minutos).
+     */
+    public void registrar(double latitudePartida, double longitudePartida, double latitudeDestino,
+                          double longitudeDestino, LocalDateTime dataPartida, double distanciaKm, double tempoMinutos) {
+        if (!habilitado) {
+            return;
+        }
+
+        double horas = tempoMinutos / 60.0;
+        double velocidade = distanciaKm / horas;
+        int celula = celula((latitudePartida + latitudeDestino) / 2, (longitudePartida + longitudeDestino) / 2);
+
+        if (celula < 0 || !(velocidade >= velocidadeMinima && velocidade <= velocidadeMaxima)) {
+            descartadas.increment();
+            return;
+        }
+
+        int posicao = celula * TabelaTarifaria.TOTAL_INTERVALOS + TabelaTarifaria.indice(dataPartida);
+        // A observação vale a partir da chegada
+        int minuto = paraMinuto(dataPartida.plusSeconds((long) (tempoMinutos * 60)));
+
+        long carimbo = trava.writeLock();
+        try {
+            int anterior = minutoAtualizacao[posicao];
+
+            if (pesos[posicao] == 0 || minuto >= anterior) {
+                // Envelhece o acumulado até o instante da nova observação
+                double fator = pesos[posicao] == 0 ? 0 : decaimento(minuto - anterior);
+                somaDistancias[posicao] = somaDistancias[posicao] * fator + distanciaKm;
+                somaHoras[posicao] = somaHoras[posicao] * fator + horas;
+                pesos[posicao] = pesos[posicao] * fator + 1;
+                minutoAtualizacao[posicao] = minuto;
+            } else {
+                // Observação mais antiga que o acumulado (ex.: carga inicial fora de ordem)
+                double fator = decaimento(anterior - minuto);
+                somaDistancias[posicao] += distanciaKm * fator;
+                somaHoras[posicao] += horas * fator;
+                pesos[posicao] += fator;
+            }
+        } finally {
+            trava.unlockWrite(carimbo);
+        }
+
+        observacoes.increment();
+    }
+
+    /**
+     * Carrega as viagens concluídas dentro do horizonte de decaimento ao iniciar a aplicação.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregarHistorico() {
+        if (!habilitado) {
+            return;
+        }
+
+        LocalDateTime inicio = LocalDateTime.now().minusMinutes(horizonteMinutos);
+        long[] ultimoId = {0};
+        int[] lidas = new int[1];
+        long total = 0;
+
+        do {
+            lidas[0] = 0;
+            jdbcTemplate.query(SQL_CONCLUIDAS, resultado -> {
+                ultimoId[0] = resultado.getLong(1);
+                lidas[0]++;
+                registrar(resultado.getDouble(5), resultado.getDouble(6), resultado.getDouble(7), resultado.getDouble(8),
+                        resultado.getObject(2, LocalDateTime.class), resultado.getDouble(3), resultado.getDouble(4));
+            }, ultimoId[0], inicio, TAMANHO_LOTE_CARGA);
+            total += lidas[0];
+        } while (lidas[0] == TAMANHO_LOTE_CARGA);
+
+        logger.info("Histórico de velocidades carregado: {} viagens concluídas, {} x {} células", total, linhas, colunas);
+    }
+
+    /**
+     * Posição da célula na grade, ou -1 se estiver fora da região.
+     */
+    private int celula(double latitude, double longitude) {
+        int linha = (int) Math.floor((latitude - latitudeMinima) / tamanhoCelula);
+        int coluna = (int) Math.floor((longitude - longitudeMinima) / tamanhoCelula);
+
+        if (linha < 0 || linha >= linhas || coluna < 0 || coluna >= colunas) {
+            return -1;
+        }
+
+        return linha * colunas + coluna;
+    }
+
+    private double decaimento(long minutos) {
+        return minutos <= 0 ? 1.0 : Math.exp(-lambdaPorMinuto * minutos);
+    }
+
+    private static int minutoAtual() {
+        return (int) TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+
+    private static int paraMinuto(LocalDateTime dataHora) {
+        Instant instante = dataHora.atZone(FUSO).toInstant();
+        return (int) TimeUnit.SECONDS.toMinutes(instante.getEpochSecond());
+    }
+
+}
@@ -1,18 +1,25 @@
 package com.generation.carona_spring.service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.generation.carona_spring.model.Viagem;
+import com.generation.carona_spring.records.ConclusaoViagem;
+import com.generation.carona_spring.records.Cotacao;
+import com.generation.carona_spring.records.SolicitacaoCotacao;
 import com.generation.carona_spring.repository.VeiculoRepository;
 import com.generation.carona_spring.repository.ViagemRepository;
 
 import jakarta.validation.Valid;
+import reactor.core.publisher.Mono;
 
 @Service
 public class ViagemService {
@@ -26,6 +33,18 @@ public class ViagemService {
     @Autowired
     private RotaService rotaService;
 
+    @Autowired
+    private RotaReativaService rotaReativaService;
+
+    @Autowired
+    private VelocidadeHistoricaService velocidadeHistoricaService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AgendaVeiculos agendaVeiculos;
+
     public List<Viagem> listarTodas() {
         return viagemRepository.findAll();
     }
@@ -38,13 +57,34 @@ public class ViagemService {
         return viagemRepository.findAllByDestinoContainingIgnoreCase(destino);
     }
 
+    public List<Viagem> buscarProximasPorDestino(String destino) {
+        return viagemRepository.findAllByDestinoAndDataPartidaGreaterThanEqualOrderByDataPartida(destino,
+                LocalDateTime.now());
+    }
+
     public Viagem criar(@Valid Viagem viagem) {
         if (!veiculoRepository.existsById(viagem.getVeiculo().getId())) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Veículo não existe!");
         }
 
         rotaService.calcularRota(viagem);
-        return viagemRepository.save(viagem);
+        viagem.setVagasDisponiveis(viagem.getVagas());
+        // O tempo estimado da rota define o intervalo ocupado pelo veículo
+        return agendaVeiculos.agendar(viagem, () -> viagemRepository.save(viagem));
+    }
+
+    /**
+     * Calcula distância, tempo e valor para cada data de partida, sem gravar a viagem.
+     */
+    public Cotacao cotar(@Valid SolicitacaoCotacao solicitacao) {
+        return rotaService.cotar(solicitacao.partida(), solicitacao.destino(), solicitacao.datasPartida());
+    }
+
+    /**
+     * Mesma cotação, sem bloquear a thread da requisição enquanto as APIs externas respondem.
+     */
+    public Mono<Cotacao> cotarSemBloquear(@Valid SolicitacaoCotacao solicitacao) {
+        return rotaReativaService.cotar(solicitacao.partida(), solicitacao.destino(), solicitacao.datasPartida());
     }
 
     public Viagem atualizar(@Valid Viagem viagem) {
@@ -57,7 +97,52 @@ public class ViagemService {
         }
 
         rotaService.calcularRota(viagem);
-        return viagemRepository.save(viagem);
+
+        // Transação apenas para a gravação: o cálculo da rota (chamadas externas) fica fora dela
+        return agendaVeiculos.agendar(viagem, () -> transactionTemplate.execute(status -> {
+            if (viagemRepository.alterarVagas(viagem.getId(), viagem.getVagas()) == 0) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "O número de vagas não pode ser menor que o de lugares reservados!");
+            }
+
+            viagem.setVagasDisponiveis(viagemRepository.consultarVagasDisponiveis(viagem.getId()));
+            return viagemRepository.save(viagem);
+        }));
+    }
+
+    /**
+     * Registra o tempo real da viagem e o incorpora ao histórico de velocidades.
+     *
+     * Só o motorista (dono da viagem) pode concluí-la, e só depois da partida: o tempo real
+     * alimenta as estimativas de todas as viagens da região.
+     */
+    @Transactional
+    public Viagem concluir(Long id, @Valid ConclusaoViagem conclusao, String login) {
+        Viagem viagem = viagemRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Viagem não encontrada!"));
+
+        if (viagem.getUsuario() == null || !viagem.getUsuario().getUsuario().equals(login)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Só o motorista pode concluir a viagem!");
+        }
+
+        if (!viagem.getDataPartida().isBefore(LocalDateTime.now())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A viagem ainda não partiu!");
+        }
+
+        if (viagem.getDistancia() == null || viagem.getLatitudePartida() == null || viagem.getLatitudeDestino() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Viagem sem rota calculada!");
+        }
+
+        if (viagemRepository.concluir(id, conclusao.tempoReal()) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Viagem já concluída!");
+        }
+
+        velocidadeHistoricaService.registrar(viagem.getLatitudePartida(), viagem.getLongitudePartida(),
+                viagem.getLatitudeDestino(), viagem.getLongitudeDestino(), viagem.getDataPartida(),
+                viagem.getDistancia(), conclusao.tempoReal());
+
+        viagem.setTempoReal(conclusao.tempoReal());
+        return viagem;
     }
 
     public void deletar(Long id) {
@@ -68,5 +153,6 @@ public class ViagemService {
         }
 
         viagemRepository.deleteById(id);
+        agendaVeiculos.remover(id);
     }
 }
@@ -0,0 +1,3 @@
+-- Login único: a unicidade fica no banco, sem consulta prévia no cadastro e na atualização.
+-- Em bancos existentes, falha se houver logins repetidos; remova-os antes de atualizar.
+CREATE UNIQUE INDEX uk_usuarios_usuario ON tb_usuarios (usuario);
@@ -0,0 +1,15 @@
+-- Refresh tokens rotativos (POST /usuarios/refresh): só o hash do token é guardado, e os
+-- tokens de uma mesma sessão formam uma família, revogada inteira se um token for reutilizado.
+CREATE TABLE tb_refresh_tokens (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    token_hash VARCHAR(64) NOT NULL,
+    familia VARCHAR(36) NOT NULL,
+    usuario_id BIGINT NOT NULL,
+    expira_em DATETIME(6) NOT NULL,
+    revogado BIT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_refresh_tokens_hash UNIQUE (token_hash),
+    CONSTRAINT fk_refresh_tokens_usuario FOREIGN KEY (usuario_id) REFERENCES tb_usuarios (id)
+);
+
+CREATE INDEX idx_refresh_tokens_familia ON tb_refresh_tokens (familia);
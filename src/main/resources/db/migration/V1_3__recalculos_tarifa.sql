@@ -0,0 +1,14 @@
+-- Execuções do recálculo de tarifas em massa (POST /tarifas/recalculo), com o ponto de
+-- retomada (ultimo_id) gravado a cada lote.
+CREATE TABLE tb_recalculos_tarifa (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    versao_tarifa VARCHAR(32) NOT NULL,
+    data_corte DATETIME(6) NOT NULL,
+    ultimo_id BIGINT NOT NULL,
+    processadas BIGINT NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    iniciado_em DATETIME(6) NOT NULL,
+    atualizado_em DATETIME(6),
+    erro VARCHAR(255),
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,3 @@
+-- Duração real das viagens concluídas (PUT /viagens/{id}/concluir), usada no aprendizado
+-- das velocidades médias por região e horário.
+ALTER TABLE tb_viagens ADD COLUMN tempo_real FLOAT(53);
@@ -0,0 +1,41 @@
+-- Esquema gerado pelo Hibernate (ddl-auto=update) antes das migrações, com os mesmos nomes,
+-- tipos e restrições. Bancos já existentes recebem a baseline na versão 1 e não executam
+-- este script; as mudanças posteriores ficam nas versões seguintes, aplicadas a todos.
+
+CREATE TABLE tb_usuarios (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    nome VARCHAR(255) NOT NULL,
+    usuario VARCHAR(255) NOT NULL,
+    senha VARCHAR(255) NOT NULL,
+    celular VARCHAR(5000),
+    foto VARCHAR(5000),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE tb_veiculos (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    modelo VARCHAR(255) NOT NULL,
+    placa VARCHAR(255) NOT NULL,
+    foto VARCHAR(5000) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE tb_viagens (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    partida VARCHAR(255) NOT NULL,
+    destino VARCHAR(255) NOT NULL,
+    data_partida DATETIME(6) NOT NULL,
+    valor DECIMAL(38,2),
+    distancia FLOAT(53),
+    velocidade_media FLOAT(53),
+    tempo_estimado FLOAT(53),
+    latitude_partida FLOAT(53),
+    longitude_partida FLOAT(53),
+    latitude_destino FLOAT(53),
+    longitude_destino FLOAT(53),
+    veiculo_id BIGINT,
+    usuario_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT FKtavqgw3gx6pwcgtghlmyxqscw FOREIGN KEY (veiculo_id) REFERENCES tb_veiculos (id),
+    CONSTRAINT FKhpcyypliq9xjr1oj0pw984wam FOREIGN KEY (usuario_id) REFERENCES tb_usuarios (id)
+);
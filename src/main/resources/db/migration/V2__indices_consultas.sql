@@ -0,0 +1,21 @@
+-- Índices das consultas frequentes. Conferidos na inicialização por VerificadorIndices.
+--
+-- Os índices compostos começam pela chave estrangeira ou pelo destino e terminam na
+-- data de partida: servem tanto à busca pela primeira coluna quanto às viagens
+-- futuras (data_partida >= agora) já ordenadas por data. No MySQL, eles também
+-- substituem os índices criados automaticamente para as chaves estrangeiras.
+
+-- Viagens de um veículo (conflitos de horário, exclusão em cascata)
+CREATE INDEX idx_viagens_veiculo_data_partida ON tb_viagens (veiculo_id, data_partida);
+
+-- Viagens de um usuário
+CREATE INDEX idx_viagens_usuario_data_partida ON tb_viagens (usuario_id, data_partida);
+
+-- Próximas viagens por destino
+CREATE INDEX idx_viagens_destino_data_partida ON tb_viagens (destino, data_partida);
+
+-- Viagens futuras (recálculo de tarifas) e histórico recente (velocidades)
+CREATE INDEX idx_viagens_data_partida ON tb_viagens (data_partida);
+
+-- Revogação de todos os refresh tokens de um usuário
+CREATE INDEX idx_refresh_tokens_usuario ON tb_refresh_tokens (usuario_id);
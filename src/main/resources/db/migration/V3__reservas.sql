@@ -0,0 +1,24 @@
+-- Vagas das viagens e reservas dos passageiros.
+-- Viagens anteriores ficam sem vagas (NULL) e não aceitam reservas até serem atualizadas.
+
+ALTER TABLE tb_viagens ADD COLUMN vagas INT;
+ALTER TABLE tb_viagens ADD COLUMN vagas_disponiveis INT;
+
+-- Garantia final contra reservas além da capacidade, além do update condicional
+ALTER TABLE tb_viagens ADD CONSTRAINT ck_viagens_vagas
+    CHECK (vagas_disponiveis >= 0 AND vagas_disponiveis <= vagas);
+
+CREATE TABLE tb_reservas (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    viagem_id BIGINT NOT NULL,
+    usuario_id BIGINT NOT NULL,
+    lugares INT NOT NULL,
+    criada_em DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_reservas_viagem_usuario UNIQUE (viagem_id, usuario_id),
+    CONSTRAINT fk_reservas_viagem FOREIGN KEY (viagem_id) REFERENCES tb_viagens (id) ON DELETE CASCADE,
+    CONSTRAINT fk_reservas_usuario FOREIGN KEY (usuario_id) REFERENCES tb_usuarios (id)
+);
+
+-- Reservas de um passageiro
+CREATE INDEX idx_reservas_usuario ON tb_reservas (usuario_id);
@@ -0,0 +1,13 @@
+-- Paradas (embarques dos passageiros) das viagens, na ordem otimizada do trajeto.
+
+CREATE TABLE tb_viagens_paradas (
+    viagem_id BIGINT NOT NULL,
+    ordem INT NOT NULL,
+    endereco VARCHAR(255) NOT NULL,
+    latitude FLOAT(53),
+    longitude FLOAT(53),
+    distancia FLOAT(53),
+    valor DECIMAL(38,2),
+    PRIMARY KEY (viagem_id, ordem),
+    CONSTRAINT fk_viagens_paradas_viagem FOREIGN KEY (viagem_id) REFERENCES tb_viagens (id) ON DELETE CASCADE
+);
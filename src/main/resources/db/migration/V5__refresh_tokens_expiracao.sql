@@ -0,0 +1,2 @@
+-- Limpeza periódica dos refresh tokens expirados (RefreshTokenService.limpar)
+CREATE INDEX idx_refresh_tokens_expira_em ON tb_refresh_tokens (expira_em);
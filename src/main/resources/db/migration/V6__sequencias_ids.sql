@@ -0,0 +1,13 @@
+-- Blocos de ids de Usuario, Veiculo e Viagem (@IdEmBlocos, AlocadorIds): o id é conhecido
+-- antes do insert e os inserts dessas tabelas podem ir em lotes JDBC.
+-- Cada sequência começa após o maior id existente. As colunas continuam AUTO_INCREMENT, mas
+-- inserts fora da aplicação devem reservar os ids aqui, para não ocupar ids de um bloco.
+CREATE TABLE tb_sequencias (
+    nome VARCHAR(64) NOT NULL,
+    proximo_valor BIGINT NOT NULL,
+    PRIMARY KEY (nome)
+);
+
+INSERT INTO tb_sequencias (nome, proximo_valor) SELECT 'tb_usuarios', COALESCE(MAX(id), 0) + 1 FROM tb_usuarios;
+INSERT INTO tb_sequencias (nome, proximo_valor) SELECT 'tb_veiculos', COALESCE(MAX(id), 0) + 1 FROM tb_veiculos;
+INSERT INTO tb_sequencias (nome, proximo_valor) SELECT 'tb_viagens', COALESCE(MAX(id), 0) + 1 FROM tb_viagens;
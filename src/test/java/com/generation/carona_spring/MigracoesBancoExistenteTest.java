@@ -0,0 +1,112 @@
+package com.generation.carona_spring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationState;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.generation.carona_spring.model.Usuario;
+import com.generation.carona_spring.model.Viagem;
+import com.generation.carona_spring.repository.UsuarioRepository;
+import com.generation.carona_spring.repository.ViagemRepository;
+
+/**
+ * Banco criado pelo Hibernate (ddl-auto=update) antes das migrações, com dados: o Flyway
+ * registra a baseline na versão 1 e aplica as seguintes. A aplicação só sobe se o esquema
+ * resultante passar pela validação do Hibernate e pelo VerificadorIndices.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password="
+})
+class MigracoesBancoExistenteTest {
+
+	private static final String URL = "jdbc:h2:mem:baseline;MODE=MySQL;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE";
+
+	@Autowired
+	private Flyway flyway;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ViagemRepository viagemRepository;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@DynamicPropertySource
+	static void criarBancoBaseline(DynamicPropertyRegistry registro) throws SQLException {
+		try (Connection conexao = DriverManager.getConnection(URL, "sa", "");
+				Statement comando = conexao.createStatement()) {
+			comando.execute("RUNSCRIPT FROM 'classpath:db/esquema_baseline.sql'");
+			comando.execute("INSERT INTO tb_usuarios (id, nome, usuario, senha) "
+					+ "VALUES (1, 'Motorista', 'motorista@email.com', 'hash')");
+			comando.execute("INSERT INTO tb_veiculos (id, modelo, placa, foto) "
+					+ "VALUES (1, 'Onix', 'ABC1D23', 'https://i.imgur.com/veiculo.png')");
+			comando.execute("INSERT INTO tb_viagens (id, partida, destino, data_partida, valor, usuario_id, veiculo_id) "
+					+ "VALUES (1, 'Rua Augusta', 'Avenida Paulista', '2030-01-01 08:00:00', 20.00, 1, 1)");
+		}
+
+		registro.add("spring.datasource.url", () -> URL);
+	}
+
+	@Test
+	void migracoesAplicadasSobreABaseline() {
+		List<MigrationInfo> aplicadas = Arrays.asList(flyway.info().applied());
+
+		assertEquals(MigrationState.BASELINE, aplicadas.get(0).getState());
+		assertEquals("1", aplicadas.get(0).getVersion().getVersion());
+		assertEquals("1.1", aplicadas.get(1).getVersion().getVersion());
+		assertEquals(0, flyway.info().pending().length);
+
+		for (MigrationInfo migracao : aplicadas.subList(1, aplicadas.size())) {
+			assertEquals(MigrationState.SUCCESS, migracao.getState(), migracao.getScript());
+		}
+	}
+
+	@Test
+	void dadosExistentesSaoPreservados() {
+		Viagem viagem = viagemRepository.findById(1L).orElseThrow();
+
+		assertEquals("Avenida Paulista", viagem.getDestino());
+		assertEquals("motorista@email.com", viagem.getUsuario().getUsuario());
+		assertNull(viagem.getVagas());
+		assertNull(viagem.getTempoReal());
+	}
+
+	@Test
+	void novosIdsContinuamAposOsExistentes() {
+		Usuario usuario = new Usuario();
+		usuario.setNome("Passageiro");
+		usuario.setUsuario("passageiro@email.com");
+		usuario.setSenha("hash-da-senha");
+
+		assertEquals(2L, usuarioRepository.save(usuario).getId());
+	}
+
+	@Test
+	void loginRepetidoERecusadoPeloBanco() {
+		assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+				"INSERT INTO tb_usuarios (nome, usuario, senha) VALUES ('Outro', 'motorista@email.com', 'hash')"));
+	}
+
+}
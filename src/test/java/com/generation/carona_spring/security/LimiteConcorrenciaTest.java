@@ -0,0 +1,133 @@
+package com.generation.carona_spring.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.generation.carona_spring.security.LimiteConcorrencia.Recusa;
+
+/**
+ * Fila do limite de concorrência com threads reais: recusa com a fila cheia e com a
+ * espera esgotada, vaga entregue a quem continua na fila quando outras threads são
+ * interrompidas e uma única redução do limite por janela de latência.
+ */
+class LimiteConcorrenciaTest {
+
+	private static final long ESPERA_LONGA_MS = 10_000;
+
+	@Test
+	void filaCheiaRecusaNaHora() throws Exception {
+		LimiteConcorrencia limite = new LimiteConcorrencia(false, 1, 1, 1, 1000, 1, ESPERA_LONGA_MS);
+		assertNull(limite.adquirir());
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			Future<Recusa> naFila = executor.submit(limite::adquirir);
+			aguardar(() -> limite.naFila() == 1);
+
+			long inicio = System.nanoTime();
+			assertEquals(Recusa.FILA_CHEIA, limite.adquirir());
+			assertTrue(System.nanoTime() - inicio < TimeUnit.SECONDS.toNanos(1), "A recusa esperou pela fila");
+
+			limite.liberar(0);
+			assertNull(naFila.get(5, TimeUnit.SECONDS));
+			assertEquals(1, limite.emUso());
+			assertEquals(0, limite.naFila());
+		}
+	}
+
+	@Test
+	void esperaEsgotadaDeixaAFila() throws Exception {
+		LimiteConcorrencia limite = new LimiteConcorrencia(false, 1, 1, 1, 1000, 1, 50);
+		assertNull(limite.adquirir());
+
+		long inicio = System.nanoTime();
+		assertEquals(Recusa.ESPERA_ESGOTADA, limite.adquirir());
+
+		assertTrue(System.nanoTime() - inicio >= TimeUnit.MILLISECONDS.toNanos(50));
+		assertEquals(1, limite.emUso());
+		assertEquals(0, limite.naFila());
+	}
+
+	@Test
+	void interrupcaoNaFilaNaoPerdeAVagaLiberada() throws Exception {
+		for (int rodada = 0; rodada < 200; rodada++) {
+			LimiteConcorrencia limite = new LimiteConcorrencia(false, 1, 1, 1, 1000, 2, ESPERA_LONGA_MS);
+			assertNull(limite.adquirir());
+
+			Thread interrompida = Thread.ofVirtual().start(() -> {
+				try {
+					// Sinalizada antes da interrupção, fica com a vaga e a libera, como o ControleAdmissaoFilter
+					if (limite.adquirir() == null) {
+						limite.liberar(0);
+					}
+				} catch (InterruptedException e) {
+					// Interrompida antes do sinal: deixa a fila sem a vaga
+				}
+			});
+			aguardar(() -> limite.naFila() == 1);
+
+			try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+				Future<Recusa> restante = executor.submit(limite::adquirir);
+				aguardar(() -> limite.naFila() == 2);
+
+				// Interrupção e liberação ao mesmo tempo: a vaga precisa chegar à thread que continua na fila
+				Thread liberacao = Thread.ofVirtual().start(() -> limite.liberar(0));
+				interrompida.interrupt();
+				liberacao.join();
+				interrompida.join();
+
+				assertNull(restante.get(5, TimeUnit.SECONDS), "Rodada " + rodada);
+				assertEquals(1, limite.emUso());
+				assertEquals(0, limite.naFila());
+			}
+		}
+	}
+
+	@Test
+	void rajadaDeRespostasLentasReduzOLimiteUmaVez() throws Exception {
+		LimiteConcorrencia limite = new LimiteConcorrencia(true, 20, 1, 20, 1, 0, 0);
+		List<Long> inicios = new ArrayList<>();
+
+		for (int i = 0; i < 10; i++) {
+			assertNull(limite.adquirir());
+			inicios.add(System.nanoTime());
+		}
+
+		Thread.sleep(5);
+
+		// Todas começaram antes da primeira redução: só a primeira a terminar reduz o limite
+		for (long inicio : inicios) {
+			limite.liberar(System.nanoTime() - inicio);
+		}
+		assertEquals(18, limite.limite());
+
+		// Uma requisição iniciada depois da redução reflete o novo limite e pode reduzi-lo de novo
+		assertNull(limite.adquirir());
+		long inicio = System.nanoTime();
+		Thread.sleep(5);
+		limite.liberar(System.nanoTime() - inicio);
+		assertEquals(16, limite.limite());
+	}
+
+	private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+		while (!condicao.getAsBoolean()) {
+			if (System.nanoTime() > limite) {
+				throw new AssertionError("Condição não atingida em 5 s");
+			}
+			Thread.sleep(1);
+		}
+	}
+
+}
@@ -0,0 +1,109 @@
+package com.generation.carona_spring.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Operações aleatórias na árvore de intervalos comparadas com uma lista percorrida
+ * inteira (força bruta): mesmas sobreposições, mesmo tamanho e mesmos intervalos
+ * removidos pela limpeza.
+ */
+class ArvoreIntervalosTest {
+
+	private static final int SEMENTES = 50;
+	private static final int OPERACOES = 2000;
+
+	@Test
+	void operacoesAleatoriasConferemComForcaBruta() {
+		for (long semente = 1; semente <= SEMENTES; semente++) {
+			Random aleatorio = new Random(semente);
+			ArvoreIntervalos arvore = new ArvoreIntervalos();
+			List<ArvoreIntervalos.Intervalo> lista = new ArrayList<>();
+			long proximoId = 1;
+
+			for (int operacao = 0; operacao < OPERACOES; operacao++) {
+				int tipo = aleatorio.nextInt(10);
+				// Faixa pequena: muitos inícios repetidos e muitas sobreposições
+				long inicio = aleatorio.nextInt(500);
+				long fim = inicio + 1 + aleatorio.nextInt(40);
+
+				if (tipo < 4) {
+					arvore.inserir(proximoId, inicio, fim);
+					lista.add(new ArvoreIntervalos.Intervalo(proximoId++, inicio, fim));
+				} else if (tipo < 6 && !lista.isEmpty()) {
+					ArvoreIntervalos.Intervalo removido = lista.remove(aleatorio.nextInt(lista.size()));
+					assertTrue(arvore.remover(removido.id(), removido.inicio()), "semente " + semente);
+				} else if (tipo < 7) {
+					assertEquals(false, arvore.remover(proximoId + 1, inicio), "semente " + semente);
+				} else if (tipo < 9) {
+					long ignorar = lista.isEmpty() || aleatorio.nextBoolean()
+							? ArvoreIntervalos.NENHUM
+							: lista.get(aleatorio.nextInt(lista.size())).id();
+					conferirBusca(arvore, lista, inicio, fim, ignorar, semente);
+				} else {
+					long ate = aleatorio.nextInt(100) + operacao / 4;
+					conferirLimpeza(arvore, lista, ate, semente);
+				}
+
+				assertEquals(lista.size(), arvore.tamanho(), "semente " + semente);
+			}
+		}
+	}
+
+	@Test
+	void intervalosSemiabertosNaoConflitamNasBordas() {
+		ArvoreIntervalos arvore = new ArvoreIntervalos();
+		arvore.inserir(1, 100, 200);
+
+		assertEquals(ArvoreIntervalos.NENHUM, arvore.buscarSobreposto(200, 300, ArvoreIntervalos.NENHUM));
+		assertEquals(ArvoreIntervalos.NENHUM, arvore.buscarSobreposto(50, 100, ArvoreIntervalos.NENHUM));
+		assertEquals(1, arvore.buscarSobreposto(199, 300, ArvoreIntervalos.NENHUM));
+		assertEquals(ArvoreIntervalos.NENHUM, arvore.buscarSobreposto(150, 160, 1));
+	}
+
+	private static void conferirBusca(ArvoreIntervalos arvore, List<ArvoreIntervalos.Intervalo> lista,
+			long inicio, long fim, long ignorar, long semente) {
+		List<Long> sobrepostos = new ArrayList<>();
+
+		for (ArvoreIntervalos.Intervalo intervalo : lista) {
+			if (intervalo.inicio() < fim && intervalo.fim() > inicio && intervalo.id() != ignorar) {
+				sobrepostos.add(intervalo.id());
+			}
+		}
+
+		long encontrado = arvore.buscarSobreposto(inicio, fim, ignorar);
+
+		if (sobrepostos.isEmpty()) {
+			assertEquals(ArvoreIntervalos.NENHUM, encontrado, "semente " + semente);
+		} else {
+			assertTrue(sobrepostos.contains(encontrado), "semente " + semente + ": " + encontrado);
+		}
+	}
+
+	private static void conferirLimpeza(ArvoreIntervalos arvore, List<ArvoreIntervalos.Intervalo> lista,
+			long ate, long semente) {
+		List<Long> esperados = new ArrayList<>();
+
+		lista.removeIf(intervalo -> {
+			boolean terminado = intervalo.fim() <= ate;
+			if (terminado) {
+				esperados.add(intervalo.id());
+			}
+			return terminado;
+		});
+
+		List<Long> removidos = new ArrayList<>();
+		arvore.removerTerminados(ate).forEach(intervalo -> removidos.add(intervalo.id()));
+
+		esperados.sort(null);
+		removidos.sort(null);
+		assertEquals(esperados, removidos, "semente " + semente);
+	}
+
+}
@@ -0,0 +1,252 @@
+package com.generation.carona_spring.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Chaves de idempotência com threads reais: repetição que espera pela original em andamento,
+ * mesma chave com outro corpo, chave em andamento que resiste ao limite de tamanho e
+ * falha da original, que não é guardada.
+ */
+class IdempotenciaServiceTest {
+
+	private static final String USUARIO = "passageiro@email.com";
+	private static final long ESPERA_LONGA_MS = 10_000;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void repeticaoEsperaPelaOriginalEmAndamento() throws Exception {
+		IdempotenciaService idempotencia = criar(100, ESPERA_LONGA_MS);
+		CountDownLatch liberarOriginal = new CountDownLatch(1);
+		AtomicInteger execucoes = new AtomicInteger();
+
+		// Fechada antes do executor: uma asserção que falha não deixa a original bloqueada
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+				AutoCloseable liberacao = liberarOriginal::countDown) {
+			Future<IdempotenciaService.Resultado> original = executor.submit(() -> idempotencia.executar(
+					USUARIO, "chave-1", new Pedido("Centro"), bloqueada(liberarOriginal, execucoes, 1)));
+			aguardar(() -> execucoes.get() == 1);
+
+			Future<IdempotenciaService.Resultado> repeticao = executor.submit(() -> idempotencia.executar(
+					USUARIO, "chave-1", new Pedido("Centro"), contada(execucoes, 2)));
+
+			// A repetição não executa nada nem responde antes da original terminar
+			assertThrows(TimeoutException.class, () -> repeticao.get(100, TimeUnit.MILLISECONDS));
+			liberarOriginal.countDown();
+
+			IdempotenciaService.Resultado primeiro = original.get(5, TimeUnit.SECONDS);
+			IdempotenciaService.Resultado segundo = repeticao.get(5, TimeUnit.SECONDS);
+
+			assertFalse(primeiro.repetido());
+			assertTrue(segundo.repetido());
+			assertArrayEquals(json(new Criada(1, "Centro")), primeiro.json());
+			assertArrayEquals(primeiro.json(), segundo.json());
+			assertEquals(1, execucoes.get());
+		}
+	}
+
+	@Test
+	void resultadoGuardadoEmJsonNaoMudaComOObjetoOriginal() {
+		IdempotenciaService idempotencia = criar(100, ESPERA_LONGA_MS);
+		Criada criada = new Criada(7, "Centro");
+		StringBuilder destino = new StringBuilder("Centro");
+
+		IdempotenciaService.Resultado primeiro = idempotencia.executar(
+				USUARIO, "chave-1", new Pedido("Centro"), () -> new Mutavel(criada.id(), destino));
+		destino.append(" alterado");
+		IdempotenciaService.Resultado segundo = idempotencia.executar(
+				USUARIO, "chave-1", new Pedido("Centro"), () -> criada);
+
+		assertTrue(segundo.repetido());
+		assertArrayEquals(json(criada), segundo.json());
+		assertArrayEquals(primeiro.json(), segundo.json());
+	}
+
+	@Test
+	void mesmaChaveComOutroCorpoRecebe422() {
+		IdempotenciaService idempotencia = criar(100, ESPERA_LONGA_MS);
+		AtomicInteger execucoes = new AtomicInteger();
+
+		idempotencia.executar(USUARIO, "chave-1", new Pedido("Centro"), contada(execucoes, 1));
+
+		ResponseStatusException erro = assertThrows(ResponseStatusException.class, () -> idempotencia.executar(
+				USUARIO, "chave-1", new Pedido("Aeroporto"), contada(execucoes, 2)));
+
+		assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, erro.getStatusCode());
+		assertEquals(1, execucoes.get());
+
+		// A chave vale por usuário: outro usuário pode usá-la com outro corpo
+		assertFalse(idempotencia.executar("motorista@email.com", "chave-1", new Pedido("Aeroporto"),
+				contada(execucoes, 3)).repetido());
+	}
+
+	@Test
+	void chaveEmAndamentoSobreviveAoLimiteDeTamanho() throws Exception {
+		IdempotenciaService idempotencia = criar(2, ESPERA_LONGA_MS);
+		CountDownLatch liberarOriginal = new CountDownLatch(1);
+		AtomicInteger execucoes = new AtomicInteger();
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+				AutoCloseable liberacao = liberarOriginal::countDown) {
+			Future<IdempotenciaService.Resultado> original = executor.submit(() -> idempotencia.executar(
+					USUARIO, "em-andamento", new Pedido("Centro"), bloqueada(liberarOriginal, execucoes, 1)));
+			aguardar(() -> execucoes.get() == 1);
+
+			// Muitas chaves concluídas depois: o limite descarta as mais antigas delas
+			for (int i = 0; i < 200; i++) {
+				idempotencia.executar(USUARIO, "concluida-" + i, new Pedido("Centro"), () -> new Criada(0, "Outra"));
+			}
+			aguardar(() -> chavesGuardadas() <= 3);
+
+			AtomicInteger execucoesRepeticao = new AtomicInteger();
+			Future<IdempotenciaService.Resultado> repeticao = executor.submit(() -> idempotencia.executar(
+					USUARIO, "em-andamento", new Pedido("Centro"), contada(execucoesRepeticao, 2)));
+			assertThrows(TimeoutException.class, () -> repeticao.get(100, TimeUnit.MILLISECONDS));
+
+			liberarOriginal.countDown();
+
+			IdempotenciaService.Resultado segundo = repeticao.get(5, TimeUnit.SECONDS);
+			assertTrue(segundo.repetido());
+			assertArrayEquals(original.get(5, TimeUnit.SECONDS).json(), segundo.json());
+			assertEquals(0, execucoesRepeticao.get());
+		}
+	}
+
+	@Test
+	void falhaDaOriginalPermiteNovaTentativaComAMesmaChave() throws Exception {
+		IdempotenciaService idempotencia = criar(100, ESPERA_LONGA_MS);
+		CountDownLatch liberarOriginal = new CountDownLatch(1);
+		AtomicInteger execucoes = new AtomicInteger();
+		ResponseStatusException falha = new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Rota indisponível");
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+				AutoCloseable liberacao = liberarOriginal::countDown) {
+			Future<IdempotenciaService.Resultado> original = executor.submit(() -> idempotencia.executar(
+					USUARIO, "chave-1", new Pedido("Centro"), () -> {
+						bloqueada(liberarOriginal, execucoes, 1).get();
+						throw falha;
+					}));
+			aguardar(() -> execucoes.get() == 1);
+
+			Future<IdempotenciaService.Resultado> repeticao = executor.submit(() -> idempotencia.executar(
+					USUARIO, "chave-1", new Pedido("Centro"), contada(execucoes, 2)));
+			assertThrows(TimeoutException.class, () -> repeticao.get(100, TimeUnit.MILLISECONDS));
+
+			liberarOriginal.countDown();
+
+			// A original e a repetição que esperava por ela recebem o mesmo erro
+			assertSame(falha, assertThrows(ExecutionException.class, () -> original.get(5, TimeUnit.SECONDS)).getCause());
+			assertSame(falha, assertThrows(ExecutionException.class, () -> repeticao.get(5, TimeUnit.SECONDS)).getCause());
+			assertEquals(1, execucoes.get());
+		}
+
+		// A falha não foi guardada: a próxima tentativa executa a operação
+		IdempotenciaService.Resultado novaTentativa = idempotencia.executar(
+				USUARIO, "chave-1", new Pedido("Centro"), contada(execucoes, 3));
+
+		assertFalse(novaTentativa.repetido());
+		assertArrayEquals(json(new Criada(3, "Centro")), novaTentativa.json());
+		assertEquals(2, execucoes.get());
+	}
+
+	@Test
+	void esperaEsgotadaPelaOriginalRecebe409() throws Exception {
+		IdempotenciaService idempotencia = criar(100, 50);
+		CountDownLatch liberarOriginal = new CountDownLatch(1);
+		AtomicInteger execucoes = new AtomicInteger();
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+				AutoCloseable liberacao = liberarOriginal::countDown) {
+			Future<IdempotenciaService.Resultado> original = executor.submit(() -> idempotencia.executar(
+					USUARIO, "chave-1", new Pedido("Centro"), bloqueada(liberarOriginal, execucoes, 1)));
+			aguardar(() -> execucoes.get() == 1);
+
+			ResponseStatusException erro = assertThrows(ResponseStatusException.class, () -> idempotencia.executar(
+					USUARIO, "chave-1", new Pedido("Centro"), contada(execucoes, 2)));
+
+			assertEquals(HttpStatus.CONFLICT, erro.getStatusCode());
+			liberarOriginal.countDown();
+			assertFalse(original.get(5, TimeUnit.SECONDS).repetido());
+			assertEquals(1, execucoes.get());
+		}
+	}
+
+	private IdempotenciaService criar(long tamanhoMaximo, long esperaMaximaMs) {
+		return new IdempotenciaService(new ObjectMapper(), meterRegistry, tamanhoMaximo, 60, esperaMaximaMs);
+	}
+
+	private double chavesGuardadas() {
+		return meterRegistry.get("idempotencia.chaves").gauge().value();
+	}
+
+	private static Supplier<Criada> contada(AtomicInteger execucoes, long id) {
+		return () -> {
+			execucoes.incrementAndGet();
+			return new Criada(id, "Centro");
+		};
+	}
+
+	private static Supplier<Criada> bloqueada(CountDownLatch liberar, AtomicInteger execucoes, long id) {
+		return () -> {
+			execucoes.incrementAndGet();
+			try {
+				liberar.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+			return new Criada(id, "Centro");
+		};
+	}
+
+	private static byte[] json(Object valor) {
+		try {
+			return new ObjectMapper().writeValueAsString(valor).getBytes(StandardCharsets.UTF_8);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+		while (!condicao.getAsBoolean()) {
+			if (System.nanoTime() > limite) {
+				throw new AssertionError("Condição não atingida em 5 s");
+			}
+			Thread.sleep(1);
+		}
+	}
+
+	private record Pedido(String destino) { }
+
+	private record Criada(long id, String destino) { }
+
+	private record Mutavel(long id, StringBuilder destino) { }
+
+}
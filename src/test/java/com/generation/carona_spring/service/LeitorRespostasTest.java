@@ -0,0 +1,123 @@
+package com.generation.carona_spring.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.generation.carona_spring.records.Coordenadas;
+
+/**
+ * Leitura em streaming das respostas gravadas da OpenCage e da OSRM (src/test/resources/respostas):
+ * campos em qualquer ordem, objetos com os mesmos nomes de campo aninhados em outros pontos,
+ * resultados vazios, valores nulos e respostas que não são um objeto JSON.
+ */
+class LeitorRespostasTest {
+
+	private static final JsonFactory fabricaJson = new ObjectMapper().getFactory();
+
+	@Test
+	void coordenadasDoPrimeiroResultadoDaOpenCage() throws IOException {
+		// As anotações (DMS, bounds) também têm lat/lng; vale a geometria do primeiro resultado
+		assertEquals(new Coordenadas(-23.5614, -46.6559), lerCoordenadas("opencage.json"));
+	}
+
+	@Test
+	void coordenadasComCamposEmOutraOrdem() throws IOException {
+		assertEquals(new Coordenadas(-23.5329, -46.6395), lerCoordenadas("opencage_ordem_diferente.json"));
+	}
+
+	@Test
+	void coordenadasAusentesSemGeometriaOuSemResultados() throws IOException {
+		assertNull(lerCoordenadas("opencage_geometria_nula.json"));
+		assertNull(lerCoordenadas("opencage_sem_resultados.json"));
+		assertNull(lerCoordenadas("opencage_chave_invalida.json"));
+		assertNull(LeitorRespostas.lerCoordenadas(parser("{\"results\":[{\"geometry\":{\"lat\":-23.5}}]}")));
+	}
+
+	@Test
+	void coordenadasAusentesSeARaizNaoForUmObjeto() throws IOException {
+		assertNull(LeitorRespostas.lerCoordenadas(parser("[{\"results\":[]}]")));
+		assertNull(LeitorRespostas.lerCoordenadas(parser("\"Service Unavailable\"")));
+		assertNull(LeitorRespostas.lerCoordenadas(parser("{\"results\":{\"geometry\":{\"lat\":1,\"lng\":2}}}")));
+	}
+
+	@Test
+	void distanciaDaPrimeiraRotaDaOsrm() throws IOException {
+		// Os trechos (legs) e os waypoints também têm distance; vale a da rota
+		assertEquals(4123.6, lerDistancia("osrm_rota.json"));
+		assertEquals(5210.4, lerDistancia("osrm_rota_ordem_diferente.json"));
+	}
+
+	@Test
+	void distanciaAusenteSemRota() throws IOException {
+		assertNull(lerDistancia("osrm_sem_rota.json"));
+		assertNull(lerDistancia("osrm_rotas_vazias.json"));
+		assertNull(LeitorRespostas.lerDistancia(parser("{\"code\":\"Ok\",\"routes\":[{\"distance\":null}]}")));
+		assertNull(LeitorRespostas.lerDistancia(parser("[]")));
+	}
+
+	@Test
+	void tabelaDeDistanciasDaOsrm() throws IOException {
+		Double[][] distancias = lerTabela("osrm_tabela.json", 3, 3);
+
+		assertArrayEquals(new Double[] { 0.0, 4123.6, 1840.2 }, distancias[0]);
+		// null na resposta: sem rota entre os pontos
+		assertArrayEquals(new Double[] { 4350.1, 0.0, null }, distancias[1]);
+		assertArrayEquals(new Double[] { 1902.7, 2633.5, 0.0 }, distancias[2]);
+	}
+
+	@Test
+	void tabelaAusenteComErroOuLinhasFaltando() throws IOException {
+		assertNull(lerTabela("osrm_tabela_invalida.json", 2, 2));
+		assertNull(lerTabela("osrm_tabela.json", 2, 3));
+		assertNull(lerTabela("osrm_tabela.json", 4, 3));
+		assertNull(LeitorRespostas.lerTabela(parser("[[0,1],[1,0]]"), 2, 2));
+	}
+
+	@Test
+	void tabelaComLinhaMaisCurtaOuNula() throws IOException {
+		Double[][] distancias = LeitorRespostas.lerTabela(
+				parser("{\"code\":\"Ok\",\"distances\":[[0,12.5],[7.5],null]}"), 3, 2);
+
+		assertArrayEquals(new Double[] { 0.0, 12.5 }, distancias[0]);
+		assertArrayEquals(new Double[] { 7.5, null }, distancias[1]);
+		assertArrayEquals(new Double[] { null, null }, distancias[2]);
+	}
+
+	private static Coordenadas lerCoordenadas(String arquivo) throws IOException {
+		try (JsonParser parser = parserDoArquivo(arquivo)) {
+			return LeitorRespostas.lerCoordenadas(parser);
+		}
+	}
+
+	private static Double lerDistancia(String arquivo) throws IOException {
+		try (JsonParser parser = parserDoArquivo(arquivo)) {
+			return LeitorRespostas.lerDistancia(parser);
+		}
+	}
+
+	private static Double[][] lerTabela(String arquivo, int origens, int destinos) throws IOException {
+		try (JsonParser parser = parserDoArquivo(arquivo)) {
+			return LeitorRespostas.lerTabela(parser, origens, destinos);
+		}
+	}
+
+	private static JsonParser parserDoArquivo(String arquivo) throws IOException {
+		InputStream resposta = LeitorRespostasTest.class.getResourceAsStream("/respostas/" + arquivo);
+		return fabricaJson.createParser(resposta);
+	}
+
+	private static JsonParser parser(String json) throws IOException {
+		return fabricaJson.createParser(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
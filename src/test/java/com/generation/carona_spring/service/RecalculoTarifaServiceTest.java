@@ -0,0 +1,128 @@
+package com.generation.carona_spring.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.generation.carona_spring.model.RecalculoTarifa;
+import com.generation.carona_spring.model.RecalculoTarifa.Status;
+import com.generation.carona_spring.model.Usuario;
+import com.generation.carona_spring.model.Viagem;
+import com.generation.carona_spring.repository.RecalculoTarifaRepository;
+import com.generation.carona_spring.repository.UsuarioRepository;
+import com.generation.carona_spring.repository.ViagemRepository;
+
+/**
+ * Retomada do recálculo de tarifas a partir do checkpoint, com banco H2 (modo MySQL)
+ * criado pelas migrações: as viagens até o último id gravado não são recalculadas de
+ * novo, e as que partiram depois do início da execução interrompida ficam de fora.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:recalculo;MODE=MySQL;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"tarifa.recalculo.tamanho-lote=2"
+})
+class RecalculoTarifaServiceTest {
+
+	private static final BigDecimal VALOR_ORIGINAL = new BigDecimal("1.00");
+
+	@Autowired
+	private RecalculoTarifaService recalculoTarifaService;
+
+	@Autowired
+	private RecalculoTarifaRepository recalculoTarifaRepository;
+
+	@Autowired
+	private TarifaService tarifaService;
+
+	@Autowired
+	private ViagemRepository viagemRepository;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Test
+	void retomadaContinuaDoCheckpointSemAsViagensQueJaPartiram() throws Exception {
+		LocalDateTime agora = LocalDateTime.now().withNano(0);
+		Usuario motorista = criarMotorista();
+
+		// Ids crescentes: a primeira já foi recalculada antes da interrupção
+		Viagem processada = criarViagem(motorista, agora.plusDays(1));
+		Viagem pendente = criarViagem(motorista, agora.plusDays(2));
+		Viagem partiuDuranteInterrupcao = criarViagem(motorista, agora.minusHours(1));
+		Viagem outraPendente = criarViagem(motorista, agora.plusDays(3));
+
+		RecalculoTarifa interrompido = new RecalculoTarifa();
+		interrompido.setVersaoTarifa(tarifaService.getTabela().getVersao());
+		interrompido.setDataCorte(agora.minusHours(2));
+		interrompido.setUltimoId(processada.getId());
+		interrompido.setProcessadas(1);
+		interrompido.setStatus(Status.EM_ANDAMENTO);
+		interrompido.setIniciadoEm(Instant.now().minusSeconds(7200));
+		interrompido = recalculoTarifaRepository.save(interrompido);
+
+		recalculoTarifaService.retomarInterrompido();
+		RecalculoTarifa concluido = aguardarFim();
+
+		assertEquals(interrompido.getId(), concluido.getId());
+		assertEquals(Status.CONCLUIDO, concluido.getStatus());
+		assertEquals(3, concluido.getProcessadas());
+		assertEquals(outraPendente.getId(), concluido.getUltimoId());
+
+		assertEquals(VALOR_ORIGINAL, valor(processada));
+		assertEquals(VALOR_ORIGINAL, valor(partiuDuranteInterrupcao));
+		assertNotEquals(VALOR_ORIGINAL, valor(pendente));
+		assertNotEquals(VALOR_ORIGINAL, valor(outraPendente));
+	}
+
+	private RecalculoTarifa aguardarFim() throws InterruptedException {
+		long limite = System.nanoTime() + 10_000_000_000L;
+
+		while (System.nanoTime() < limite) {
+			RecalculoTarifa ultimo = recalculoTarifaService.consultarUltimo().orElseThrow();
+
+			if (ultimo.getStatus() != Status.EM_ANDAMENTO) {
+				return ultimo;
+			}
+
+			Thread.sleep(20);
+		}
+
+		throw new AssertionError("O recálculo não terminou em 10 s");
+	}
+
+	private BigDecimal valor(Viagem viagem) {
+		return viagemRepository.findById(viagem.getId()).orElseThrow().getValor();
+	}
+
+	private Usuario criarMotorista() {
+		Usuario usuario = new Usuario();
+		usuario.setNome("Motorista");
+		usuario.setUsuario("motorista.recalculo@email.com");
+		usuario.setSenha("hash-da-senha");
+		return usuarioRepository.save(usuario);
+	}
+
+	private Viagem criarViagem(Usuario motorista, LocalDateTime dataPartida) {
+		Viagem viagem = new Viagem();
+		viagem.setPartida("Rua Augusta, 100");
+		viagem.setDestino("Avenida Paulista, 900");
+		viagem.setDataPartida(dataPartida);
+		viagem.setDistancia(12.5);
+		viagem.setValor(VALOR_ORIGINAL);
+		viagem.setVagas(4);
+		viagem.setVagasDisponiveis(4);
+		viagem.setUsuario(motorista);
+		return viagemRepository.save(viagem);
+	}
+
+}
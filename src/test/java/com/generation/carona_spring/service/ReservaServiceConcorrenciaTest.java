@@ -0,0 +1,207 @@
+package com.generation.carona_spring.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.generation.carona_spring.model.Reserva;
+import com.generation.carona_spring.model.Usuario;
+import com.generation.carona_spring.model.Veiculo;
+import com.generation.carona_spring.model.Viagem;
+import com.generation.carona_spring.repository.ReservaRepository;
+import com.generation.carona_spring.repository.UsuarioRepository;
+import com.generation.carona_spring.repository.VeiculoRepository;
+import com.generation.carona_spring.repository.ViagemRepository;
+
+/**
+ * Centenas de passageiros reservando a mesma viagem ao mesmo tempo, com banco H2
+ * (modo MySQL) criado pelas migrações: nenhuma reserva além da capacidade, nenhuma
+ * reserva duplicada e vagas disponíveis sempre iguais à capacidade menos o reservado.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:reservas;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000;IGNORE_UNKNOWN_SETTINGS=TRUE",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.hikari.maximum-pool-size=20",
+		"spring.datasource.hikari.minimum-idle=2"
+})
+class ReservaServiceConcorrenciaTest {
+
+	private static final int PASSAGEIROS = 400;
+
+	private static final AtomicInteger sequencia = new AtomicInteger();
+
+	@Autowired
+	private ReservaService reservaService;
+
+	@Autowired
+	private ViagemRepository viagemRepository;
+
+	@Autowired
+	private ReservaRepository reservaRepository;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private VeiculoRepository veiculoRepository;
+
+	@Test
+	void reservasSimultaneasNaoExcedemACapacidade() throws Exception {
+		Viagem viagem = criarViagem(40);
+		List<String> passageiros = criarPassageiros(PASSAGEIROS);
+
+		List<Resultado> resultados = executarJuntos(passageiros.size(),
+				i -> () -> reservaService.reservar(viagem.getId(), passageiros.get(i), 1));
+
+		assertEquals(40, contar(resultados, null));
+		assertEquals(PASSAGEIROS - 40, contar(resultados, HttpStatus.CONFLICT));
+		assertEquals(0, viagemRepository.consultarVagasDisponiveis(viagem.getId()));
+		assertEquals(40, reservaRepository.findAllByViagem_IdOrderById(viagem.getId()).size());
+	}
+
+	@Test
+	void reservasECancelamentosSimultaneosMantemAsVagasConsistentes() throws Exception {
+		int vagas = 30;
+		Viagem viagem = criarViagem(vagas);
+		List<String> passageiros = criarPassageiros(PASSAGEIROS);
+
+		// Metade dos passageiros já tem reserva e cancela enquanto a outra metade reserva
+		int metade = PASSAGEIROS / 2;
+		for (int i = 0; i < 10; i++) {
+			reservaService.reservar(viagem.getId(), passageiros.get(metade + i), 1 + i % 2);
+		}
+
+		List<Resultado> resultados = executarJuntos(PASSAGEIROS, i -> i >= metade && i < metade + 10
+				? () -> { reservaService.cancelar(viagem.getId(), passageiros.get(i)); return null; }
+				: () -> reservaService.reservar(viagem.getId(), passageiros.get(i), 1 + i % 3));
+
+		for (Resultado resultado : resultados) {
+			assertTrue(resultado.status() == null || resultado.status() == HttpStatus.CONFLICT
+					|| resultado.status() == HttpStatus.NOT_FOUND, "Falha inesperada: " + resultado.status());
+		}
+
+		int reservados = reservaRepository.findAllByViagem_IdOrderById(viagem.getId()).stream()
+				.mapToInt(Reserva::getLugares)
+				.sum();
+		int disponiveis = viagemRepository.consultarVagasDisponiveis(viagem.getId());
+
+		assertTrue(disponiveis >= 0);
+		assertEquals(vagas, disponiveis + reservados);
+	}
+
+	@Test
+	void reservasSimultaneasDoMesmoPassageiroGeramUmaReserva() throws Exception {
+		Viagem viagem = criarViagem(10);
+		String passageiro = criarPassageiros(1).get(0);
+
+		List<Resultado> resultados = executarJuntos(100,
+				i -> () -> reservaService.reservar(viagem.getId(), passageiro, 1));
+
+		assertEquals(1, contar(resultados, null));
+		assertEquals(99, contar(resultados, HttpStatus.CONFLICT));
+		assertEquals(9, viagemRepository.consultarVagasDisponiveis(viagem.getId()));
+	}
+
+	private record Resultado(HttpStatus status) {}
+
+	private interface Tarefa {
+		Callable<Object> criar(int indice);
+	}
+
+	/**
+	 * Libera todas as tarefas ao mesmo tempo (uma thread virtual por tarefa) e
+	 * retorna o status de cada uma (null = sucesso).
+	 */
+	private static List<Resultado> executarJuntos(int quantidade, Tarefa tarefa) throws Exception {
+		CountDownLatch largada = new CountDownLatch(1);
+		List<Future<Resultado>> futuros = new ArrayList<>();
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < quantidade; i++) {
+				Callable<Object> chamada = tarefa.criar(i);
+				futuros.add(executor.submit(() -> {
+					largada.await();
+					try {
+						chamada.call();
+						return new Resultado(null);
+					} catch (ResponseStatusException e) {
+						return new Resultado(HttpStatus.valueOf(e.getStatusCode().value()));
+					}
+				}));
+			}
+
+			largada.countDown();
+
+			List<Resultado> resultados = new ArrayList<>();
+			for (Future<Resultado> futuro : futuros) {
+				resultados.add(futuro.get());
+			}
+			return resultados;
+		}
+	}
+
+	private static long contar(List<Resultado> resultados, HttpStatus status) {
+		return resultados.stream().filter(resultado -> resultado.status() == status).count();
+	}
+
+	private Viagem criarViagem(int vagas) {
+		Usuario motorista = criarUsuario();
+
+		Veiculo veiculo = new Veiculo();
+		veiculo.setModelo("Onix");
+		veiculo.setPlaca("ABC1D23");
+		veiculo.setFoto("https://i.imgur.com/veiculo.png");
+
+		Viagem viagem = new Viagem();
+		viagem.setPartida("Rua Augusta, 100");
+		viagem.setDestino("Avenida Paulista, 900");
+		viagem.setDataPartida(LocalDateTime.now().plusDays(1).withNano(0));
+		viagem.setValor(new BigDecimal("20.00"));
+		viagem.setVagas(vagas);
+		viagem.setVagasDisponiveis(vagas);
+		viagem.setVeiculo(veiculoRepository.save(veiculo));
+		viagem.setUsuario(motorista);
+		return viagemRepository.save(viagem);
+	}
+
+	private List<String> criarPassageiros(int quantidade) {
+		List<Usuario> usuarios = new ArrayList<>();
+		for (int i = 0; i < quantidade; i++) {
+			usuarios.add(novoUsuario());
+		}
+
+		return usuarioRepository.saveAll(usuarios).stream().map(Usuario::getUsuario).toList();
+	}
+
+	private Usuario criarUsuario() {
+		return usuarioRepository.save(novoUsuario());
+	}
+
+	private static Usuario novoUsuario() {
+		int numero = sequencia.incrementAndGet();
+		Usuario usuario = new Usuario();
+		usuario.setNome("Passageiro " + numero);
+		usuario.setUsuario("passageiro" + numero + "@email.com");
+		usuario.setSenha("hash-irrelevante");
+		return usuario;
+	}
+
+}
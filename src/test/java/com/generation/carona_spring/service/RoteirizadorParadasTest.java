@@ -0,0 +1,150 @@
+package com.generation.carona_spring.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Ordem das paradas comparada com a melhor ordem por força bruta (todas as permutações),
+ * em matrizes pequenas simétricas e assimétricas com pontos aleatórios.
+ *
+ * O vizinho mais próximo com 2-opt não garante o ótimo: o teste confere que a rota é
+ * válida, nunca menor que o ótimo, ótima com até duas paradas, sem inversão que a
+ * encurte e, na média, a menos de 3% do ótimo.
+ */
+class RoteirizadorParadasTest {
+
+	private static final int MATRIZES = 300;
+	private static final int MAXIMO_PARADAS = 7;
+	private static final double TOLERANCIA = 1e-9;
+
+	@Test
+	void rotaProximaDaMelhorPorForcaBruta() {
+		for (boolean assimetrica : new boolean[] { false, true }) {
+			for (int paradas = 1; paradas <= MAXIMO_PARADAS; paradas++) {
+				Random aleatorio = new Random(paradas * 31L + (assimetrica ? 1 : 0));
+				double somaRazoes = 0;
+
+				for (int m = 0; m < MATRIZES; m++) {
+					double[][] distancias = matrizAleatoria(aleatorio, paradas + 2, assimetrica);
+					String caso = "paradas=" + paradas + " assimetrica=" + assimetrica + " matriz=" + m;
+
+					int[] rota = RoteirizadorParadas.ordenar(distancias);
+					conferirRotaValida(rota, distancias.length, caso);
+
+					double distancia = RoteirizadorParadas.distanciaTotal(rota, distancias);
+					double otima = melhorDistancia(distancias);
+
+					assertTrue(distancia >= otima - TOLERANCIA, caso);
+					assertTrue(semInversaoMelhor(rota, distancias), caso);
+					if (paradas <= 2) {
+						assertEquals(otima, distancia, TOLERANCIA, caso);
+					}
+
+					somaRazoes += distancia / otima;
+				}
+
+				double media = somaRazoes / MATRIZES;
+				assertTrue(media < 1.03, "paradas=" + paradas + " assimetrica=" + assimetrica + " média=" + media);
+			}
+		}
+	}
+
+	@Test
+	void paradasEmLinhaRetaSaoVisitadasEmOrdem() {
+		// Partida em 0 km, destino em 10 km e paradas fora de ordem no caminho
+		double[] posicoes = { 0, 7, 2, 9, 4, 10 };
+		double[][] distancias = new double[posicoes.length][posicoes.length];
+		for (int i = 0; i < posicoes.length; i++) {
+			for (int j = 0; j < posicoes.length; j++) {
+				distancias[i][j] = Math.abs(posicoes[i] - posicoes[j]);
+			}
+		}
+
+		assertArrayEquals(new int[] { 0, 2, 4, 1, 3, 5 }, RoteirizadorParadas.ordenar(distancias));
+	}
+
+	private static double[][] matrizAleatoria(Random aleatorio, int pontos, boolean assimetrica) {
+		double[] x = new double[pontos];
+		double[] y = new double[pontos];
+		for (int i = 0; i < pontos; i++) {
+			x[i] = aleatorio.nextDouble() * 20;
+			y[i] = aleatorio.nextDouble() * 20;
+		}
+
+		// Na assimétrica, cada sentido tem até 30% a mais (ruas de mão única)
+		double[][] distancias = new double[pontos][pontos];
+		for (int i = 0; i < pontos; i++) {
+			for (int j = 0; j < pontos; j++) {
+				double fator = assimetrica && i != j ? 1 + 0.3 * aleatorio.nextDouble() : 1;
+				distancias[i][j] = Math.hypot(x[i] - x[j], y[i] - y[j]) * fator;
+			}
+		}
+		return distancias;
+	}
+
+	private static void conferirRotaValida(int[] rota, int pontos, String caso) {
+		assertEquals(pontos, rota.length, caso);
+		assertEquals(0, rota[0], caso);
+		assertEquals(pontos - 1, rota[pontos - 1], caso);
+
+		int[] ordenada = rota.clone();
+		Arrays.sort(ordenada);
+		for (int i = 0; i < pontos; i++) {
+			assertEquals(i, ordenada[i], caso);
+		}
+	}
+
+	private static double melhorDistancia(double[][] distancias) {
+		int[] rota = new int[distancias.length];
+		for (int i = 0; i < rota.length; i++) {
+			rota[i] = i;
+		}
+		return melhorDistancia(rota, 1, distancias);
+	}
+
+	// Permuta as paradas (posições 1 a n-2); partida e destino ficam fixos
+	private static double melhorDistancia(int[] rota, int posicao, double[][] distancias) {
+		if (posicao == rota.length - 1) {
+			return RoteirizadorParadas.distanciaTotal(rota, distancias);
+		}
+
+		double melhor = Double.MAX_VALUE;
+		for (int i = posicao; i < rota.length - 1; i++) {
+			trocar(rota, posicao, i);
+			melhor = Math.min(melhor, melhorDistancia(rota, posicao + 1, distancias));
+			trocar(rota, posicao, i);
+		}
+		return melhor;
+	}
+
+	private static boolean semInversaoMelhor(int[] rota, double[][] distancias) {
+		double distancia = RoteirizadorParadas.distanciaTotal(rota, distancias);
+
+		for (int i = 1; i < rota.length - 2; i++) {
+			for (int j = i + 1; j <= rota.length - 2; j++) {
+				int[] invertida = rota.clone();
+				for (int a = i, b = j; a < b; a++, b--) {
+					trocar(invertida, a, b);
+				}
+
+				if (RoteirizadorParadas.distanciaTotal(invertida, distancias) < distancia - 1e-6) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static void trocar(int[] rota, int i, int j) {
+		int temporario = rota[i];
+		rota[i] = rota[j];
+		rota[j] = temporario;
+	}
+
+}
@@ -0,0 +1,48 @@
+-- Esquema criado pelo Hibernate (ddl-auto=update, MySQLDialect) a partir das entidades
+-- do commit baseline, antes das migrações do Flyway.
+
+create table tb_usuarios (
+    id bigint not null auto_increment,
+    celular varchar(5000),
+    foto varchar(5000),
+    nome varchar(255) not null,
+    senha varchar(255) not null,
+    usuario varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table tb_veiculos (
+    id bigint not null auto_increment,
+    foto varchar(5000) not null,
+    modelo varchar(255) not null,
+    placa varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table tb_viagens (
+    distancia float(53),
+    latitude_destino float(53),
+    latitude_partida float(53),
+    longitude_destino float(53),
+    longitude_partida float(53),
+    tempo_estimado float(53),
+    valor decimal(38,2),
+    velocidade_media float(53),
+    data_partida datetime(6) not null,
+    id bigint not null auto_increment,
+    usuario_id bigint,
+    veiculo_id bigint,
+    destino varchar(255) not null,
+    partida varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table tb_viagens
+   add constraint FKhpcyypliq9xjr1oj0pw984wam
+   foreign key (usuario_id)
+   references tb_usuarios (id);
+
+alter table tb_viagens
+   add constraint FKtavqgw3gx6pwcgtghlmyxqscw
+   foreign key (veiculo_id)
+   references tb_veiculos (id);